@@ -0,0 +1,180 @@
+package bond;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import bond.BondIntegerPoints.EnumerationMode;
+import graph.GraphGenerator;
+
+/**
+ * Compute the facets of the bond polytope of every connected graph (up to isomorphism) with a given range of numbers of vertices.
+ *
+ * The graphs are generated in process by {@code GraphGenerator} and given to a pool with a fixed number of workers.
+ * The queue of the pool is bounded: when it is full, the generator runs the next graph itself, which slows the generation down to the speed of the workers.
+ * Each graph is processed in its own folder (graph file, porta files) and a summary line is added to the file "summary.txt" of the output folder:
+ * id, number of vertices, number of edges, number of integer points, number of facets and list of the edges.
+ */
+public class BondBatch {
+
+	/** Number of graphs waiting in the queue of the pool for each worker */
+	static final int QUEUE_SIZE_BY_THREAD = 4;
+
+	/** Folder which contains the workspace of each graph and the summary */
+	String outputFolder;
+
+	/** Number of workers */
+	int threads;
+
+	/** Id of the next graph generated */
+	AtomicLong nextId = new AtomicLong(1);
+
+	BufferedWriter summary;
+
+	/**
+	 * @param outputFolder Folder which contains the workspace of each graph and the summary (created if necessary)
+	 * @param threads Number of graphs processed at the same time
+	 */
+	public BondBatch(String outputFolder, int threads) {
+		this.outputFolder = outputFolder;
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Process all the connected graphs whose number of vertices is in [minVertices, maxVertices]
+	 * @param minVertices Minimal number of vertices
+	 * @param maxVertices Maximal number of vertices
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public void run(int minVertices, int maxVertices) throws IOException, InterruptedException {
+
+		new File(outputFolder).mkdirs();
+
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(threads * QUEUE_SIZE_BY_THREAD), new ThreadPoolExecutor.CallerRunsPolicy());
+
+		summary = new BufferedWriter(new FileWriter(outputFolder + "/summary.txt"));
+		summary.write("id\tn\tm\tpoints\tfacets\tedges\n");
+
+		try {
+			for(int n = minVertices; n <= maxVertices; n++)
+				new GraphGenerator(n).generate((size, adj) -> {
+					long id = nextId.getAndIncrement();
+					pool.execute(() -> process(id, size, adj));
+				});
+		}
+		finally {
+			pool.shutdown();
+			pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+			summary.close();
+		}
+	}
+
+	/**
+	 * Compute the integer points and the facets of the bond polytope of a graph in its own workspace and add its summary line
+	 * @param id Id of the graph
+	 * @param n Number of vertices
+	 * @param adj List of edges
+	 */
+	private void process(long id, int n, ArrayList<ArrayList<Integer>> adj) {
+
+		String workspace = outputFolder + "/graph_" + id;
+		String points = "-";
+		String facets = "-";
+
+		try {
+			new File(workspace).mkdirs();
+			writeGraph(workspace + "/graph.txt", n, adj);
+
+			BondIntegerPoints bip = new BondIntegerPoints(n, adj.size(), adj);
+			bip.setTmpFolder(workspace);
+
+			/* Each bond is created once, so that the point count is the number of integer points of the polytope */
+			bip.setEnumerationMode(EnumerationMode.CONNECTED_SETS);
+
+			long[] pointCount = new long[1];
+			bip.setIntegerPointConsumer(p -> pointCount[0]++);
+
+			long facetCount = 0;
+
+			for(String line: bip.getIPFacets().split("\n"))
+				if(line.trim().startsWith("("))
+					facetCount++;
+
+			points = Long.toString(pointCount[0]);
+			facets = Long.toString(facetCount);
+		}
+		catch(Exception e) {
+			System.err.println("Graph " + id + " failed: " + e);
+			facets = "error";
+		}
+
+		writeSummary(id + "\t" + n + "\t" + adj.size() + "\t" + points + "\t" + facets + "\t" + edgesToString(adj));
+	}
+
+	private synchronized void writeSummary(String line) {
+
+		try {
+			summary.write(line + "\n");
+			summary.flush();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Write a graph in the format read by {@code BondIntegerPoints(String)}
+	 * @param file Path of the file
+	 * @param n Number of vertices
+	 * @param adj List of edges
+	 * @throws IOException
+	 */
+	static void writeGraph(String file, int n, ArrayList<ArrayList<Integer>> adj) throws IOException {
+
+		try(BufferedWriter bw = new BufferedWriter(new FileWriter(file))){
+			bw.write("n = " + n + "\n");
+			bw.write("m = " + adj.size() + "\n");
+
+			for(ArrayList<Integer> edge: adj)
+				bw.write(edge.get(0) + " " + edge.get(1) + "\n");
+		}
+	}
+
+	static String edgesToString(ArrayList<ArrayList<Integer>> adj) {
+
+		StringBuilder sb = new StringBuilder();
+
+		for(ArrayList<Integer> edge: adj) {
+			if(sb.length() > 0)
+				sb.append(',');
+			sb.append(edge.get(0)).append('-').append(edge.get(1));
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Usage: BondBatch minVertices maxVertices threads outputFolder
+	 * @param args
+	 */
+	public static void main(String[] args) {
+
+		if(args.length != 4) {
+			System.err.println("Usage: BondBatch minVertices maxVertices threads outputFolder");
+			return;
+		}
+
+		try {
+			new BondBatch(args[3], Integer.parseInt(args[2])).run(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+		} catch (IOException | InterruptedException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,262 @@
+package bond;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import bond.BondIntegerPoints.EnumerationMode;
+import exception.UnknownVariableName;
+import graph.BitGraph;
+import utils.GraySubsetIterator;
+import utils.LargeGraySubsetIterator;
+
+/**
+ * Enumerate the cuts delta(S) of a graph such that S and V\S are connected.
+ *
+ * Each cut is given as an edge mask: bit e % 64 of word e / 64 is set if the e-th edge of the edge list is in the cut.
+ * The mask of a cut is the XOR of the incidence masks of the vertices of S (an edge is in the cut iff exactly one of its extremities is in S).
+ */
+public class BondCutEnumerator {
+
+	/**
+	 * Action performed on each cut found
+	 */
+	public interface CutConsumer {
+
+		/**
+		 * @param cut Edge mask of the cut (shared between calls, must not be modified)
+		 * @throws UnknownVariableName
+		 */
+		void accept(long[] cut) throws UnknownVariableName;
+	}
+
+	/** Minimal number of subsets tested by a task in parallel mode */
+	static final long MIN_RANGE_SIZE = 1024;
+
+	/** Number of ranges of subsets by thread in parallel mode */
+	static final int RANGES_BY_THREAD = 16;
+
+	int n; // nombre de sommets
+	ArrayList<ArrayList<Integer>> adj; // liste d'adjacence
+	EnumerationMode enumerationMode; // façon d'énumérer les ensembles S
+	int parallelism; // nombre de threads utilisés pour tester les ensembles S
+	long[][] incidences; // masque des arêtes incidentes à chaque sommet
+	int edgeWords; // nombre de mots d'un masque d'arêtes
+
+	/**
+	 * @param n Number of vertices
+	 * @param adj List of edges, each edge being a list of its two extremities (between 1 and n)
+	 * @param enumerationMode The way the sets S are enumerated
+	 * @param parallelism Number of threads used to test the subsets (only in modes ALL_SUBSETS and HALF_SUBSETS, with at most {@code GraySubsetIterator.MAX_ELEMENTS} enumerated vertices)
+	 */
+	public BondCutEnumerator(int n, ArrayList<ArrayList<Integer>> adj, EnumerationMode enumerationMode, int parallelism) {
+
+		this.n = n;
+		this.adj = adj;
+		this.enumerationMode = enumerationMode;
+		this.parallelism = Math.max(1, parallelism);
+		this.edgeWords = Math.max(1, (adj.size() + 63) / 64);
+
+		incidences = new long[n][edgeWords];
+
+		for(int e = 0; e < adj.size(); e++) {
+			int x1 = adj.get(e).get(0);
+			int x2 = adj.get(e).get(1);
+			incidences[x1 - 1][e / 64] ^= 1L << (e % 64);
+			incidences[x2 - 1][e / 64] ^= 1L << (e % 64);
+		}
+	}
+
+	/**
+	 * @return Number of words of an edge mask
+	 */
+	public int getEdgeWordCount() {
+		return edgeWords;
+	}
+
+	/**
+	 * Enumerate the cuts
+	 * @param consumer Action performed on each cut (always called from the current thread, in a deterministic order)
+	 * @throws UnknownVariableName
+	 */
+	public void enumerate(CutConsumer consumer) throws UnknownVariableName {
+
+		BitGraph graph = new BitGraph(n, adj);
+		long[] cut = new long[edgeWords];
+
+		/* Seuls les ensembles S connexes de complémentaire connexe sont construits (le graphe doit être connexe) */
+		if(enumerationMode == EnumerationMode.CONNECTED_SETS && graph.isConnected()) {
+			new BondEnumerator(n, adj).enumerate(S -> consumer.accept(getCut(S, cut)));
+			return;
+		}
+
+		/* Nombre de sommets dont l'appartenance à S est énumérée
+		 * (en mode HALF_SUBSETS, le sommet 1 est toujours dans S et seuls les sommets 2 à n sont énumérés) */
+		boolean isVertex1Fixed = enumerationMode != EnumerationMode.ALL_SUBSETS && n > 0;
+		int free = isVertex1Fixed ? n - 1 : n;
+		int shift = isVertex1Fixed ? 1 : 0;
+
+		/* Si le graphe n'est pas connexe, S et V\S ne sont connexes que si ce sont des unions de composantes : la coupe vide est la seule coupe.
+		 * Elle est obtenue pour S = V et, s'il y a deux composantes, pour S = la composante du sommet 1 : elle n'est donnée qu'une fois */
+		if(isVertex1Fixed && !graph.isConnected()) {
+			consumer.accept(cut);
+			return;
+		}
+
+		/* Les sous-ensembles sont énumérés un par un, dans l'ordre du code de Gray */
+		if(parallelism > 1 && free <= GraySubsetIterator.MAX_ELEMENTS && graph.isSmall())
+			enumerateInParallel(graph, free, shift, consumer);
+		else if(free <= GraySubsetIterator.MAX_ELEMENTS && graph.isSmall()) {
+			GraySubsetIterator it = new GraySubsetIterator(free);
+			while(it.hasNext()) {
+				long S = (it.nextSubset() << shift) | shift;
+				if(graph.isBond(S))
+					consumer.accept(getCut(S, cut));
+			}
+		}
+		else {
+			LargeGraySubsetIterator it = new LargeGraySubsetIterator(free);
+			long[] S = new long[graph.getWordCount()];
+			S[0] = shift;
+			while(it.hasNext()) {
+				it.nextSubset();
+
+				/* Mise à jour de S à partir du sommet ajouté ou retiré */
+				if(it.getFlippedElement() != 0) {
+					int v = it.getFlippedElement() + shift;
+					S[(v - 1) / 64] ^= 1L << ((v - 1) % 64);
+				}
+
+				if(graph.isBond(S))
+					consumer.accept(getCut(S, cut));
+			}
+		}
+	}
+
+	/**
+	 * Test the subsets in parallel. The ranks of the subsets in the Gray-code order are split into ranges of equal size, each range being processed by a task of a fork/join pool.
+	 * The tasks are submitted in the order of the ranges and each task stores its cuts in its own list. The list of a range is given to the consumer as soon as this range and the previous ones are completed,
+	 * so that the cuts are obtained in the same order as in the sequential enumeration without waiting for the last range.
+	 * @param graph The graph
+	 * @param free Number of vertices whose membership to S is enumerated
+	 * @param shift 1 if vertex 1 is always in S; 0 otherwise
+	 * @param consumer Action performed on each cut
+	 * @throws UnknownVariableName
+	 */
+	private void enumerateInParallel(BitGraph graph, int free, int shift, CutConsumer consumer) throws UnknownVariableName {
+
+		long subsetCount = 1L << free;
+
+		/* Several ranges by thread to balance the load (the cost of the connectivity tests varies between subsets) */
+		long rangeSize = Math.max(MIN_RANGE_SIZE, subsetCount / (parallelism * RANGES_BY_THREAD));
+		int rangeCount = (int) ((subsetCount + rangeSize - 1) / rangeSize);
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+		try {
+			List<ForkJoinTask<List<long[]>>> ranges = new ArrayList<>(rangeCount);
+
+			for(int range = 0; range < rangeCount; range++)
+				ranges.add(pool.submit(new SubsetRangeTask(graph, free, shift, range * rangeSize, Math.min(subsetCount, (range + 1) * rangeSize))));
+
+			for(int range = 0; range < rangeCount; range++) {
+				List<long[]> rangeCuts = ranges.get(range).join();
+
+				/* Les coupes de l'intervalle ne sont plus conservées une fois données */
+				ranges.set(range, null);
+
+				for(long[] cut: rangeCuts)
+					consumer.accept(cut);
+			}
+		}
+		finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Task which tests the subsets whose ranks are in [from, to[ and returns their cuts
+	 */
+	@SuppressWarnings("serial")
+	private class SubsetRangeTask extends RecursiveTask<List<long[]>> {
+
+		BitGraph graph;
+		int free, shift;
+		long from, to;
+
+		SubsetRangeTask(BitGraph graph, int free, int shift, long from, long to) {
+			this.graph = graph;
+			this.free = free;
+			this.shift = shift;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected List<long[]> compute() {
+
+			List<long[]> rangeCuts = new ArrayList<>();
+
+			GraySubsetIterator it = new GraySubsetIterator(free, from, to);
+			while(it.hasNext()) {
+				long S = (it.nextSubset() << shift) | shift;
+				if(graph.isBond(S))
+					rangeCuts.add(getCut(S, new long[edgeWords]));
+			}
+
+			return rangeCuts;
+		}
+	}
+
+	/**
+	 * Compute the edge mask of the cut of S (n <= 64)
+	 * @param S Bitmask of the vertices of one side of the cut
+	 * @param cut Array in which the edge mask is computed
+	 * @return {@code cut}
+	 */
+	public long[] getCut(long S, long[] cut) {
+
+		Arrays.fill(cut, 0);
+
+		/* An edge is in the cut iff exactly one of its extremities is in S */
+		while(S != 0) {
+			long[] incidence = incidences[Long.numberOfTrailingZeros(S)];
+
+			for(int w = 0; w < cut.length; w++)
+				cut[w] ^= incidence[w];
+
+			S &= S - 1;
+		}
+
+		return cut;
+	}
+
+	/**
+	 * Compute the edge mask of the cut of S (any n)
+	 * @param S Bitmask of the vertices of one side of the cut
+	 * @param cut Array in which the edge mask is computed
+	 * @return {@code cut}
+	 */
+	public long[] getCut(long[] S, long[] cut) {
+
+		Arrays.fill(cut, 0);
+
+		for(int sw = 0; sw < S.length; sw++) {
+			long word = S[sw];
+
+			while(word != 0) {
+				long[] incidence = incidences[sw * 64 + Long.numberOfTrailingZeros(word)];
+
+				for(int w = 0; w < cut.length; w++)
+					cut[w] ^= incidence[w];
+
+				word &= word - 1;
+			}
+		}
+
+		return cut;
+	}
+}
@@ -0,0 +1,216 @@
+package bond;
+
+import java.util.ArrayList;
+
+import exception.UnknownVariableName;
+
+/**
+ * Output-sensitive enumeration of the sets S such that S and V\S induce connected subgraphs (i.e., such that delta(S) is a bond).
+ *
+ * Only the sets S which contain vertex 1 are enumerated, so that each bond is obtained once.
+ * The graph must be connected.
+ *
+ * The enumeration is a binary partition (flashlight search) of the connected sets containing vertex 1.
+ * Each node of the search tree is a pair (S, X) in which S is connected and X is a set of vertices forbidden in S.
+ * A vertex v adjacent to S and not in X is chosen and two children are created: (S + v, X) and (S, X + v).
+ * A node is only explored if at least one bond extends it, i.e., if all the vertices of X are in the same connected component of V\S
+ * (S plus the other components is then connected and its complement is this component).
+ * Consequently each leaf is a bond, the depth is at most n and each node is processed in O(n * (n/64)):
+ * the time between two consecutive bonds is polynomial and the total time is proportional to the number of bonds rather than to 2^n.
+ *
+ * Vertex i corresponds to bit (i-1) % 64 of word (i-1) / 64 of the subsets.
+ */
+public class BondEnumerator {
+
+	/**
+	 * Action performed on each set S found
+	 */
+	public interface BondConsumer {
+
+		/**
+		 * @param S The set (shared between calls, must not be modified)
+		 * @throws UnknownVariableName
+		 */
+		void accept(long[] S) throws UnknownVariableName;
+	}
+
+	/** Number of vertices */
+	int n;
+
+	/** Number of words of a subset */
+	int words;
+
+	/** Neighbourhood of each vertex (index i-1 for vertex i) */
+	long[][] neighbours;
+
+	/** Set S, set X and neighbourhood of S at each depth of the search tree */
+	long[][] S, X, NS;
+
+	/** Buffers of the connectivity tests */
+	long[] reached, frontier, next;
+
+	/** Called for each bond */
+	BondConsumer consumer;
+
+	/**
+	 * @param n Number of vertices
+	 * @param adj List of edges, each edge being a list of its two extremities (between 1 and n)
+	 */
+	public BondEnumerator(int n, ArrayList<ArrayList<Integer>> adj) {
+
+		this.n = n;
+		this.words = Math.max(1, (n + 63) / 64);
+		this.neighbours = new long[n][words];
+
+		for(ArrayList<Integer> edge: adj) {
+			int x1 = edge.get(0);
+			int x2 = edge.get(1);
+
+			if(x1 != x2 && x1 >= 1 && x1 <= n && x2 >= 1 && x2 <= n) {
+				neighbours[x1 - 1][(x2 - 1) / 64] |= 1L << ((x2 - 1) % 64);
+				neighbours[x2 - 1][(x1 - 1) / 64] |= 1L << ((x1 - 1) % 64);
+			}
+		}
+
+		S = new long[n + 1][words];
+		X = new long[n + 1][words];
+		NS = new long[n + 1][words];
+		reached = new long[words];
+		frontier = new long[words];
+		next = new long[words];
+	}
+
+	/**
+	 * Enumerate all the sets S which contain vertex 1 such that S and V\S are connected (S = V included)
+	 * @param consumer Action performed on each set
+	 * @throws UnknownVariableName
+	 */
+	public void enumerate(BondConsumer consumer) throws UnknownVariableName {
+
+		if(n == 0)
+			return;
+
+		this.consumer = consumer;
+
+		for(int w = 0; w < words; w++) {
+			S[0][w] = 0;
+			X[0][w] = 0;
+			NS[0][w] = neighbours[0][w];
+		}
+
+		S[0][0] = 1L;
+		enumerate(0);
+	}
+
+	private void enumerate(int depth) throws UnknownVariableName {
+
+		long[] s = S[depth];
+		long[] x = X[depth];
+		long[] ns = NS[depth];
+
+		/* Find a vertex adjacent to S which is neither in S nor in X */
+		int v = -1;
+
+		for(int w = 0; w < words && v == -1; w++) {
+			long candidates = ns[w] & ~s[w] & ~x[w];
+
+			if(candidates != 0)
+				v = w * 64 + Long.numberOfTrailingZeros(candidates);
+		}
+
+		/* If S cannot be extended, the feasibility of the node ensures that V\S is connected */
+		if(v == -1) {
+			consumer.accept(s);
+			return;
+		}
+
+		int vw = v / 64;
+		long vBit = 1L << (v % 64);
+		long[] cS = S[depth + 1];
+		long[] cX = X[depth + 1];
+		long[] cNS = NS[depth + 1];
+
+		/* First child: v is added to S */
+		for(int w = 0; w < words; w++) {
+			cS[w] = s[w];
+			cX[w] = x[w];
+			cNS[w] = ns[w] | neighbours[v][w];
+		}
+		cS[vw] |= vBit;
+
+		if(isExtensible(cS, cX))
+			enumerate(depth + 1);
+
+		/* Second child: v is forbidden in S */
+		for(int w = 0; w < words; w++) {
+			cS[w] = s[w];
+			cX[w] = x[w];
+			cNS[w] = ns[w];
+		}
+		cX[vw] |= vBit;
+
+		if(isExtensible(cS, cX))
+			enumerate(depth + 1);
+	}
+
+	/**
+	 * Test if a bond delta(S') such that S is included in S' and X is included in V\S' exists
+	 * @return True if X is included in a connected component of V\S
+	 */
+	private boolean isExtensible(long[] s, long[] x) {
+
+		int first = -1;
+
+		for(int w = 0; w < words; w++) {
+			reached[w] = 0;
+			frontier[w] = 0;
+
+			if(first == -1 && x[w] != 0)
+				first = w;
+		}
+
+		/* S' = V is always a solution */
+		if(first == -1)
+			return true;
+
+		/* Breadth-first search in V\S from a vertex of X */
+		reached[first] = x[first] & -x[first];
+		frontier[first] = reached[first];
+		boolean isFrontierEmpty = false;
+
+		while(!isFrontierEmpty) {
+
+			for(int w = 0; w < words; w++)
+				next[w] = 0;
+
+			for(int w = 0; w < words; w++) {
+				long word = frontier[w];
+
+				while(word != 0) {
+					long[] nv = neighbours[w * 64 + Long.numberOfTrailingZeros(word)];
+
+					for(int w2 = 0; w2 < words; w2++)
+						next[w2] |= nv[w2];
+
+					word &= word - 1;
+				}
+			}
+
+			isFrontierEmpty = true;
+
+			for(int w = 0; w < words; w++) {
+				frontier[w] = next[w] & ~s[w] & ~reached[w];
+				reached[w] |= frontier[w];
+
+				if(frontier[w] != 0)
+					isFrontierEmpty = false;
+			}
+		}
+
+		for(int w = 0; w < words; w++)
+			if((x[w] & ~reached[w]) != 0)
+				return false;
+
+		return true;
+	}
+}
@@ -0,0 +1,158 @@
+package bond;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import exception.InvalidIEQFileFormatException;
+import formulation.Inequality;
+import graph.Automorphisms;
+
+/**
+ * Persistent cache of the facets of bond polytopes indexed by the isomorphism class of the graph.
+ *
+ * The key of a graph is its canonical form (see {@code Automorphisms.getCanonicalForm}).
+ * The facets are stored over the canonical edges: the edges relabeled with the canonical labeling and sorted by extremities.
+ * A graph which is a relabeling of a graph already stored thus gets its facets by mapping each canonical edge back on its own edge.
+ *
+ * Each entry is a file named after the SHA-256 of the key which contains the key on its first line followed by one inequality by line in porta format.
+ */
+public class BondFacetCache {
+
+	/** Folder which contains the entries */
+	String folder;
+
+	/**
+	 * @param folder Folder which contains the entries (created if necessary)
+	 */
+	public BondFacetCache(String folder) {
+		this.folder = folder;
+		new File(folder).mkdirs();
+	}
+
+	/**
+	 * Get the facets of the bond polytope of a graph
+	 * @param n Number of vertices
+	 * @param adj List of edges (the variable of the e-th edge has index e)
+	 * @return The facets over the variables of the edges of {@code adj}; null if the isomorphism class of the graph is not in the cache
+	 * @throws IOException
+	 * @throws InvalidIEQFileFormatException
+	 */
+	public List<Inequality> get(int n, ArrayList<ArrayList<Integer>> adj) throws IOException, InvalidIEQFileFormatException {
+
+		Automorphisms automorphisms = new Automorphisms(n, adj);
+		String key = automorphisms.getCanonicalForm();
+		Path entry = getEntry(key);
+
+		if(!Files.exists(entry))
+			return null;
+
+		List<String> lines = Files.readAllLines(entry);
+
+		/* Different keys with the same hash */
+		if(lines.isEmpty() || !lines.get(0).equals(key))
+			return null;
+
+		int[] canonicalEdge = getCanonicalEdges(automorphisms.getCanonicalLabeling(), adj);
+		List<Inequality> facets = new ArrayList<>();
+
+		for(String line: lines.subList(1, lines.size())) {
+			Inequality canonicalFacet = Inequality.parse(line, adj.size());
+			long[] coefficients = new long[adj.size()];
+
+			for(int e = 0; e < adj.size(); e++)
+				coefficients[e] = canonicalFacet.coefficients[canonicalEdge[e]];
+
+			facets.add(new Inequality(coefficients, canonicalFacet.sense, canonicalFacet.rhs));
+		}
+
+		return facets;
+	}
+
+	/**
+	 * Add the facets of the bond polytope of a graph
+	 * @param n Number of vertices
+	 * @param adj List of edges (the variable of the e-th edge has index e)
+	 * @param facets The facets over the variables of the edges of {@code adj}
+	 * @throws IOException
+	 */
+	public void put(int n, ArrayList<ArrayList<Integer>> adj, List<Inequality> facets) throws IOException {
+
+		Automorphisms automorphisms = new Automorphisms(n, adj);
+		String key = automorphisms.getCanonicalForm();
+		int[] canonicalEdge = getCanonicalEdges(automorphisms.getCanonicalLabeling(), adj);
+
+		/* The entry is written in a temporary file and then renamed so that a concurrent reader never sees a partial entry */
+		Path entry = getEntry(key);
+		Path tmp = Files.createTempFile(Paths.get(folder), "entry", ".tmp");
+
+		try(BufferedWriter bw = new BufferedWriter(new FileWriter(tmp.toFile()))){
+			bw.write(key + "\n");
+
+			for(Inequality facet: facets) {
+				long[] coefficients = new long[adj.size()];
+
+				for(int e = 0; e < adj.size(); e++)
+					coefficients[canonicalEdge[e]] = facet.coefficients[e];
+
+				bw.write(new Inequality(coefficients, facet.sense, facet.rhs).toPortaString() + "\n");
+			}
+		}
+
+		Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Compute the index of each edge among the canonical edges
+	 * @param label Canonical label of each vertex (entry 0 is not used)
+	 * @param adj List of edges
+	 * @return The index of the canonical edge of each edge (parallel edges are given consecutive indices)
+	 */
+	static int[] getCanonicalEdges(int[] label, ArrayList<ArrayList<Integer>> adj) {
+
+		int m = adj.size();
+		long[] keys = new long[m];
+
+		/* Sort the edges by relabeled extremities (the index of the edge is in the low bits to keep the order of the parallel edges) */
+		for(int e = 0; e < m; e++) {
+			long x1 = label[adj.get(e).get(0)];
+			long x2 = label[adj.get(e).get(1)];
+			keys[e] = (Math.min(x1, x2) << 42) | (Math.max(x1, x2) << 21) | e;
+		}
+
+		Arrays.sort(keys);
+
+		int[] canonicalEdge = new int[m];
+
+		for(int i = 0; i < m; i++)
+			canonicalEdge[(int) (keys[i] & ((1L << 21) - 1))] = i;
+
+		return canonicalEdge;
+	}
+
+	private Path getEntry(String key) {
+
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+			StringBuilder sb = new StringBuilder();
+
+			for(byte b: hash)
+				sb.append(String.format("%02x", b));
+
+			return Paths.get(folder, sb.toString() + ".ieq");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
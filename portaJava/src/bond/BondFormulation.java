@@ -4,15 +4,27 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.function.Consumer;
 
 
 import exception.UnknownCommandException;
 import exception.UnknownVariableName;
 import formulation.AbstractFormulation;
+import formulation.Inequality;
 import formulation.LPReader;
 import formulation.Variable;
 import formulation.example.KnapsackFormulation.InvalidKnapsackInputFile;
+import graph.BitGraph;
+import utils.LargeGraySubsetIterator;
 
 public class BondFormulation extends AbstractFormulation{
 
@@ -20,13 +32,11 @@ public class BondFormulation extends AbstractFormulation{
 	public int m; // nombre d'arêtes
 	public ArrayList<ArrayList<Integer>> adj; //liste d'djacence
 	
-	public BondFormulation(int n,int m, ArrayList<ArrayList<Integer>> ajd) throws UnknownCommandException, IOException, InterruptedException {
+	public BondFormulation(int n,int m, ArrayList<ArrayList<Integer>> adj) throws UnknownCommandException, IOException, InterruptedException {
 		super();
 		this.n= n;
 		this.m = m;
 		this.adj = adj;
-		
-		// TODO Auto-generated constructor stub
 	}
 	public BondFormulation(String inputFile) throws UnknownCommandException, IOException, InterruptedException {
 
@@ -96,20 +106,687 @@ public class BondFormulation extends AbstractFormulation{
 		}
 	}
 
+	/**
+	 * Action performed on each inequality of a family
+	 */
+	public interface InequalityConsumer {
+		void accept(Inequality inequality) throws IOException;
+	}
+
+	/**
+	 * The constraints are the cycle inequalities followed by the disconnection inequalities (see {@code writeConstraints}).
+	 * As the string contains all of them, this is only possible on small graphs.
+	 */
 	@Override
 	public String getConstraints() throws UnknownVariableName {
-		
-		
-		
-		return null;
+
+		StringWriter sw = new StringWriter();
+
+		try {
+			writeConstraints(sw);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		return sw.toString();
+	}
+
+	/**
+	 * Write the constraints one by one as they are generated. The integer points of the formulation are the bonds of the graph and the empty cut (the graph must be connected):
+	 * - the cycle inequalities x(F) - x(C\F) <= |F| - 1 for each chordless cycle C and each F included in C with |F| odd restrict the 0/1 points to the cuts;
+	 * - the disconnection inequalities x(delta(A)) + x(delta(B)) <= |delta(A)| + |delta(B)| - 1 for each pair of disjoint non-adjacent connected sets A and B
+	 * remove the cuts delta(S) such that S or V\S is not connected (A and B are then two components of the same side).
+	 */
+	@Override
+	protected void writeConstraints(Writer writer) throws IOException, UnknownVariableName {
+
+		InequalityConsumer consumer = inequality -> writer.write(inequality.toPortaString() + "\n");
+
+		forEachCycleInequality(consumer);
+		forEachDisconnectionInequality(consumer);
+	}
+
+	/**
+	 * The inequalities are given as they are generated, without being written and parsed
+	 */
+	@Override
+	public void forEachConstraint(Consumer<Inequality> consumer) throws IOException, UnknownVariableName {
+
+		initializeVariables();
+
+		forEachCycleInequality(consumer::accept);
+		forEachDisconnectionInequality(consumer::accept);
 	}
 
 	@Override
 	protected void createVariables() {
-		for(int i = 0; i <= n; ++i)
-			for(int j = 0; j<= n;j++)
-			this.registerVariable(new Variable("x" + i + "" + j, 0, 1)); // créé une variable pour chaque arête
-		
+		for(int i = 1; i <= adj.size(); ++i)
+			this.registerVariable(new Variable("x" + adj.get(i-1).get(0)+""+adj.get(i-1).get(1), 0, 1)); // créé une variable pour chaque arête
+	}
+
+	/**
+	 * Give each cycle inequality to a consumer. The inequalities of a cycle are generated when the cycle is found so that they are never stored.
+	 * The variable of the e-th edge of {@code adj} has index e in the inequalities.
+	 * @param consumer Action performed on each inequality
+	 * @throws IOException
+	 */
+	public void forEachCycleInequality(InequalityConsumer consumer) throws IOException {
+
+		int[][] edgeIndex = getEdgeIndex();
+
+		/* Les boucles ne sont dans aucune coupe et deux arêtes parallèles sont toujours ensemble dans une coupe (cycles de longueur 1 et 2) */
+		for(int e = 0; e < adj.size(); e++) {
+			int x1 = adj.get(e).get(0);
+			int x2 = adj.get(e).get(1);
+
+			if(x1 == x2)
+				consumer.accept(cycleInequality(new int[] {e}, 1));
+			else if(edgeIndex[x1][x2] != e) {
+				int f = edgeIndex[x1][x2];
+				consumer.accept(cycleInequality(new int[] {e, f}, 1));
+				consumer.accept(cycleInequality(new int[] {f, e}, 1));
+			}
+		}
+
+		/* Chaque cycle sans corde de longueur au moins 3 est construit une fois à partir de son plus petit sommet s */
+		int[] path = new int[n];
+
+		for(int s = 1; s <= n; s++) {
+			path[0] = s;
+			extendChordlessPath(path, 1, edgeIndex, consumer);
+		}
+	}
+
+	/**
+	 * Extend a chordless path whose vertices are all larger than its first vertex
+	 * @param path The vertices of the path
+	 * @param length Number of vertices of the path
+	 * @param edgeIndex Index of the first edge between each pair of vertices (-1 if they are not adjacent)
+	 * @param consumer Action performed on the inequalities of the cycles found
+	 * @throws IOException
+	 */
+	private void extendChordlessPath(int[] path, int length, int[][] edgeIndex, InequalityConsumer consumer) throws IOException {
+
+		int s = path[0];
+		int last = path[length - 1];
+
+		for(int w = s + 1; w <= n; w++) {
+
+			if(w == last || edgeIndex[last][w] == -1)
+				continue;
+
+			/* w must not be in the path nor adjacent to one of its vertices other than s and the last one */
+			boolean isValid = true;
+
+			for(int i = 1; i < length - 1 && isValid; i++)
+				isValid = path[i] != w && edgeIndex[path[i]][w] == -1;
+
+			if(!isValid)
+				continue;
+
+			/* Le cycle est fermé par w (chaque cycle est obtenu dans un seul sens : path[1] < w) */
+			if(length >= 2 && edgeIndex[s][w] != -1) {
+				if(path[1] < w) {
+					int[] cycle = new int[length + 1];
+
+					for(int i = 0; i < length - 1; i++)
+						cycle[i] = edgeIndex[path[i]][path[i + 1]];
+
+					cycle[length - 1] = edgeIndex[last][w];
+					cycle[length] = edgeIndex[w][s];
+
+					forEachOddSubset(cycle, consumer);
+				}
+			}
+			else {
+				path[length] = w;
+				extendChordlessPath(path, length + 1, edgeIndex, consumer);
+			}
+		}
+	}
+
+	/**
+	 * Give to a consumer the cycle inequality of each odd subset F of the edges of a cycle
+	 * @param cycle The edges of the cycle
+	 * @param consumer Action performed on each inequality
+	 * @throws IOException
+	 */
+	private void forEachOddSubset(int[] cycle, InequalityConsumer consumer) throws IOException {
+
+		/* The subsets F are enumerated in Gray-code order: a single coefficient changes between two subsets */
+		long[] coefficients = new long[adj.size()];
+
+		for(int e: cycle)
+			coefficients[e] = -1;
+
+		LargeGraySubsetIterator it = new LargeGraySubsetIterator(cycle.length);
+		int size = 0;
+
+		while(it.hasNext()) {
+			it.nextSubset();
+
+			if(it.getFlippedElement() != 0) {
+				int e = cycle[it.getFlippedElement() - 1];
+				coefficients[e] = -coefficients[e];
+				size += it.isFlippedElementAdded() ? 1 : -1;
+			}
+
+			if(size % 2 == 1)
+				consumer.accept(new Inequality(coefficients.clone(), Inequality.Sense.LESS_OR_EQUAL, size - 1));
+		}
+	}
+
+	/**
+	 * @param cycle The edges of a cycle
+	 * @param size Number of edges of F (the first {@code size} edges of the cycle)
+	 * @return The cycle inequality x(F) - x(C\F) <= |F| - 1
+	 */
+	private Inequality cycleInequality(int[] cycle, int size) {
+
+		long[] coefficients = new long[adj.size()];
+
+		for(int i = 0; i < cycle.length; i++)
+			coefficients[cycle[i]] += i < size ? 1 : -1;
+
+		return new Inequality(coefficients, Inequality.Sense.LESS_OR_EQUAL, size - 1);
+	}
+
+	/**
+	 * Give each disconnection inequality to a consumer (n <= 64). Each pair {A, B} is considered once (the smallest vertex is in A).
+	 * The variable of the e-th edge of {@code adj} has index e in the inequalities.
+	 * @param consumer Action performed on each inequality
+	 * @throws IOException
+	 */
+	public void forEachDisconnectionInequality(InequalityConsumer consumer) throws IOException {
+
+		if(n > 64)
+			throw new IllegalArgumentException("The disconnection inequalities can only be generated for graphs with at most 64 vertices (" + n + ")");
+
+		BitGraph graph = new BitGraph(n, adj);
+		long all = graph.allVertices();
+
+		forEachConnectedSet(graph, all, A -> {
+
+			long allowed = all & ~(A | closedNeighbourhood(graph, A));
+
+			/* Seuls les ensembles B dont le plus petit sommet est supérieur à celui de A */
+			allowed &= ~((Long.lowestOneBit(A) << 1) - 1);
+
+			forEachConnectedSet(graph, allowed, B -> {
+				Inequality inequality = disconnectionInequality(A, B);
+
+				if(inequality != null)
+					consumer.accept(inequality);
+			});
+		});
+	}
+
+	/**
+	 * Action performed on each connected set
+	 */
+	private interface ConnectedSetConsumer {
+		void accept(long set) throws IOException;
+	}
+
+	/**
+	 * Enumerate the connected sets included in a set of vertices (each set is obtained once, from its smallest vertex)
+	 * @param graph The graph
+	 * @param allowed The vertices which can be in the sets
+	 * @param consumer Action performed on each set
+	 * @throws IOException
+	 */
+	private void forEachConnectedSet(BitGraph graph, long allowed, ConnectedSetConsumer consumer) throws IOException {
+
+		long remaining = allowed;
+
+		while(remaining != 0) {
+			long s = Long.lowestOneBit(remaining);
+			remaining ^= s;
+
+			/* The vertices smaller than s are forbidden */
+			long forbidden = (s - 1) | ~allowed;
+			extendConnectedSet(graph, s, neighbourhood(graph, s) & ~forbidden & ~s, forbidden | s, consumer);
+		}
+	}
+
+	/**
+	 * @param graph The graph
+	 * @param set The current connected set
+	 * @param extension The vertices adjacent to the set which can be added to it
+	 * @param forbidden The vertices which cannot be added to the set (including the set)
+	 * @param consumer Action performed on each set
+	 * @throws IOException
+	 */
+	private void extendConnectedSet(BitGraph graph, long set, long extension, long forbidden, ConnectedSetConsumer consumer) throws IOException {
+
+		consumer.accept(set);
+
+		/* Each set is built by adding the vertices of the extension in increasing order: a vertex which is not added is forbidden in the following branches */
+		while(extension != 0) {
+			long v = Long.lowestOneBit(extension);
+			extension ^= v;
+
+			long newForbidden = forbidden | v;
+			extendConnectedSet(graph, set | v, (extension | neighbourhood(graph, v)) & ~newForbidden, newForbidden, consumer);
+			forbidden |= v;
+		}
+	}
+
+	private static long neighbourhood(BitGraph graph, long v) {
+		return graph.neighbours(Long.numberOfTrailingZeros(v) + 1);
+	}
+
+	private static long closedNeighbourhood(BitGraph graph, long set) {
+
+		long result = set;
+
+		for(long s = set; s != 0; s &= s - 1)
+			result |= neighbourhood(graph, Long.lowestOneBit(s));
+
+		return result;
+	}
+
+	/**
+	 * @param A A set of vertices (bit v - 1 for vertex v)
+	 * @param B A set of vertices disjoint from A and not adjacent to A
+	 * @return The inequality x(delta(A)) + x(delta(B)) <= |delta(A)| + |delta(B)| - 1; null if delta(A) or delta(B) is empty
+	 */
+	private Inequality disconnectionInequality(long A, long B) {
+
+		long[] coefficients = new long[adj.size()];
+		int sizeA = 0;
+		int sizeB = 0;
+
+		for(int e = 0; e < adj.size(); e++) {
+			long x1 = 1L << (adj.get(e).get(0) - 1);
+			long x2 = 1L << (adj.get(e).get(1) - 1);
+
+			if(((x1 & A) == 0) != ((x2 & A) == 0)) {
+				coefficients[e] = 1;
+				sizeA++;
+			}
+			else if(((x1 & B) == 0) != ((x2 & B) == 0)) {
+				coefficients[e] = 1;
+				sizeB++;
+			}
+		}
+
+		if(sizeA == 0 || sizeB == 0)
+			return null;
+
+		return new Inequality(coefficients, Inequality.Sense.LESS_OR_EQUAL, sizeA + sizeB - 1);
+	}
+
+	/**
+	 * Find the inequalities of both families violated by a point
+	 * @param x Value of the variable of each edge (x[e] for the e-th edge of {@code adj})
+	 * @return The violated inequalities
+	 */
+	public List<Inequality> separate(double[] x) {
+
+		List<Inequality> result = separateCycleInequalities(x);
+		result.addAll(separateDisconnectionInequalities(x));
+
+		return result;
+	}
+
+	/**
+	 * Find cycle inequalities violated by a point with the algorithm of Barahona and Mahjoub (exact for 0 <= x <= 1).
+	 *
+	 * In the graph with two copies (v, 0) and (v, 1) of each vertex, an edge uv not in F links (u, p) and (v, p) with weight x_uv
+	 * and an edge in F links (u, p) and (v, 1 - p) with weight 1 - x_uv. A path from (v, 0) to (v, 1) of weight w < 1 gives a closed walk
+	 * with an odd number of edges in F whose inequality is violated by 1 - w. The walk is split into cycles and the odd ones with weight smaller than 1 are returned.
+	 * A violated cycle which has a chord is split along it until the cycles are chordless, so that the inequalities returned are among those of {@code writeConstraints}.
+	 * @param x Value of the variable of each edge (x[e] for the e-th edge of {@code adj})
+	 * @return The violated cycle inequalities (without duplicates)
+	 */
+	public List<Inequality> separateCycleInequalities(double[] x) {
+
+		LinkedHashSet<Inequality> result = new LinkedHashSet<>();
+		int[][] edgeIndex = getEdgeIndex();
+
+		/* Incident edges of each vertex */
+		List<List<Integer>> incident = new ArrayList<>();
+
+		for(int v = 0; v <= n; v++)
+			incident.add(new ArrayList<>());
+
+		for(int e = 0; e < adj.size(); e++) {
+			incident.get(adj.get(e).get(0)).add(e);
+
+			if(!adj.get(e).get(0).equals(adj.get(e).get(1)))
+				incident.get(adj.get(e).get(1)).add(e);
+		}
+
+		/* Node 2v + p is the copy (v, p) of vertex v */
+		double[] distance = new double[2 * (n + 1)];
+		int[] predecessorEdge = new int[2 * (n + 1)];
+		int[] predecessor = new int[2 * (n + 1)];
+
+		for(int s = 1; s <= n; s++) {
+
+			/* Dijkstra from (s, 0) */
+			Arrays.fill(distance, Double.POSITIVE_INFINITY);
+			Arrays.fill(predecessor, -1);
+			distance[2 * s] = 0;
+
+			PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+			queue.add(new double[] {0, 2 * s});
+
+			while(!queue.isEmpty()) {
+				double[] top = queue.poll();
+				int node = (int) top[1];
+
+				if(top[0] > distance[node] || top[0] >= 1 - EPSILON)
+					continue;
+
+				int u = node / 2;
+				int p = node % 2;
+
+				for(int e: incident.get(u)) {
+					int v = adj.get(e).get(0) == u ? adj.get(e).get(1) : adj.get(e).get(0);
+					double value = Math.min(1, Math.max(0, x[e]));
+
+					/* e not in F, then e in F */
+					for(int inF = 0; inF <= 1; inF++) {
+						int next = 2 * v + (p ^ inF);
+						double d = distance[node] + (inF == 1 ? 1 - value : value);
+
+						if(d < distance[next]) {
+							distance[next] = d;
+							predecessor[next] = node;
+							predecessorEdge[next] = e;
+							queue.add(new double[] {d, next});
+						}
+					}
+				}
+			}
+
+			if(distance[2 * s + 1] < 1 - EPSILON) {
+
+				/* Closed walk from s: nodes and edges from (s, 1) back to (s, 0) */
+				List<Integer> nodes = new ArrayList<>();
+				List<Integer> edges = new ArrayList<>();
+
+				for(int node = 2 * s + 1; node != 2 * s; node = predecessor[node]) {
+					nodes.add(node);
+					edges.add(predecessorEdge[node]);
+				}
+				nodes.add(2 * s);
+
+				addViolatedCycles(nodes, edges, x, edgeIndex, result);
+			}
+		}
+
+		return new ArrayList<>(result);
+	}
+
+	/** Tolerance used to decide if an inequality is violated */
+	static final double EPSILON = 1E-6;
+
+	/**
+	 * Split a closed walk into cycles and add the inequalities of the odd cycles violated by x
+	 * @param nodes Nodes (2v + p) of the walk (the first and the last nodes are copies of the same vertex)
+	 * @param edges Edge between each pair of consecutive nodes
+	 * @param x The point
+	 * @param edgeIndex Index of the first edge between each pair of vertices (-1 if they are not adjacent)
+	 * @param result The set in which the violated inequalities are added
+	 */
+	private void addViolatedCycles(List<Integer> nodes, List<Integer> edges, double[] x, int[][] edgeIndex, LinkedHashSet<Inequality> result) {
+
+		/* Position in the stack of each vertex of the walk (-1 if not in the stack) */
+		int[] position = new int[n + 1];
+		Arrays.fill(position, -1);
+
+		List<Integer> stackNodes = new ArrayList<>();
+		List<Integer> stackEdges = new ArrayList<>();
+
+		for(int i = 0; i < nodes.size(); i++) {
+			int v = nodes.get(i) / 2;
+
+			if(position[v] != -1) {
+
+				/* The walk from the previous occurrence of v is a cycle */
+				int start = position[v];
+				int[] cycle = new int[stackEdges.size() - start + 1];
+				int[] vertices = new int[cycle.length];
+				boolean[] isInF = new boolean[cycle.length];
+
+				for(int j = start; j < stackEdges.size(); j++) {
+					vertices[j - start] = stackNodes.get(j) / 2;
+					cycle[j - start] = stackEdges.get(j);
+					isInF[j - start] = stackNodes.get(j) % 2 != stackNodes.get(j + 1) % 2;
+				}
+
+				vertices[cycle.length - 1] = stackNodes.get(stackNodes.size() - 1) / 2;
+				cycle[cycle.length - 1] = edges.get(i - 1);
+				isInF[cycle.length - 1] = stackNodes.get(stackNodes.size() - 1) % 2 != nodes.get(i) % 2;
+
+				addIfViolated(vertices, cycle, isInF, x, edgeIndex, result);
+
+				/* Remove the cycle from the stack (v stays with the parity of its new occurrence) */
+				for(int j = stackNodes.size() - 1; j > start; j--) {
+					position[stackNodes.get(j) / 2] = -1;
+					stackNodes.remove(j);
+				}
+
+				while(stackEdges.size() > start)
+					stackEdges.remove(stackEdges.size() - 1);
+
+				stackNodes.set(start, nodes.get(i));
+			}
+			else {
+				if(i > 0)
+					stackEdges.add(edges.get(i - 1));
+
+				position[v] = stackNodes.size();
+				stackNodes.add(nodes.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Add the inequality of a cycle if F is odd, no edge is used twice and the inequality is violated by x.
+	 *
+	 * The inequalities of {@code writeConstraints} are those of the chordless cycles which only use the first edge between two vertices.
+	 * If the cycle has a chord f (or uses another edge e between two vertices, f being then the first one), it is split along f into two cycles C1 and C2
+	 * and f is added to F in the one whose part of F is even. The sum of their inequalities is the inequality of the cycle,
+	 * so at least one of them is violated and the cycles are split again until they are in the family.
+	 * @param vertices The vertices of the cycle (the i-th edge links the i-th and the (i+1)-th vertices)
+	 * @param cycle The edges of the cycle
+	 * @param isInF True for the edges of F
+	 * @param x The point
+	 * @param edgeIndex Index of the first edge between each pair of vertices (-1 if they are not adjacent)
+	 * @param result The set in which the violated inequalities are added
+	 */
+	private void addIfViolated(int[] vertices, int[] cycle, boolean[] isInF, double[] x, int[][] edgeIndex, LinkedHashSet<Inequality> result) {
+
+		long[] coefficients = new long[adj.size()];
+		int size = 0;
+		double lhs = 0;
+
+		for(int i = 0; i < cycle.length; i++) {
+			int e = cycle[i];
+
+			if(coefficients[e] != 0)
+				return;
+
+			coefficients[e] = isInF[i] ? 1 : -1;
+			lhs += coefficients[e] * x[e];
+
+			if(isInF[i])
+				size++;
+		}
+
+		if(size % 2 == 0 || lhs <= size - 1 + EPSILON)
+			return;
+
+		int k = cycle.length;
+
+		/* Une arête parallèle à la première arête entre ses extrémités : le cycle est coupé par la première (k >= 2, pas une boucle) */
+		for(int i = 0; i < k && k >= 2; i++) {
+			int f = edgeIndex[vertices[i]][vertices[(i + 1) % k]];
+
+			if(f != cycle[i] && (k > 2 || f != cycle[1 - i])) {
+				splitCycle(vertices, cycle, isInF, i, i + 1, f, x, edgeIndex, result);
+				return;
+			}
+		}
+
+		/* Une corde entre les sommets i et j non consécutifs */
+		for(int i = 0; i < k; i++)
+			for(int j = i + 2; j < k && (i > 0 || j < k - 1); j++) {
+				int f = edgeIndex[vertices[i]][vertices[j]];
+
+				if(f != -1) {
+					splitCycle(vertices, cycle, isInF, i, j, f, x, edgeIndex, result);
+					return;
+				}
+			}
+
+		result.add(new Inequality(coefficients, Inequality.Sense.LESS_OR_EQUAL, size - 1));
+	}
+
+	/**
+	 * Split a cycle along an edge f between its i-th and j-th vertices (i < j <= k, the k-th vertex being the first one)
+	 * into C1 (edges i to j-1 and f) and C2 (edges j to k-1, 0 to i-1 and f), and add the inequalities of the two cycles if they are violated
+	 */
+	private void splitCycle(int[] vertices, int[] cycle, boolean[] isInF, int i, int j, int f, double[] x, int[][] edgeIndex, LinkedHashSet<Inequality> result) {
+
+		int k = cycle.length;
+		int length1 = j - i + 1;
+		int length2 = k - j + i + 1;
+
+		int[] vertices1 = new int[length1], cycle1 = new int[length1];
+		int[] vertices2 = new int[length2], cycle2 = new int[length2];
+		boolean[] isInF1 = new boolean[length1], isInF2 = new boolean[length2];
+		int size1 = 0;
+
+		for(int t = 0; t < length1 - 1; t++) {
+			vertices1[t] = vertices[i + t];
+			cycle1[t] = cycle[i + t];
+			isInF1[t] = isInF[i + t];
+
+			if(isInF1[t])
+				size1++;
+		}
+
+		for(int t = 0; t < length2 - 1; t++) {
+			int position = (j + t) % k;
+			vertices2[t] = vertices[position];
+			cycle2[t] = cycle[position];
+			isInF2[t] = isInF[position];
+		}
+
+		/* f ferme chaque cycle et n'est dans F que pour celui dont la partie de F est paire */
+		vertices1[length1 - 1] = vertices[j % k];
+		cycle1[length1 - 1] = f;
+		isInF1[length1 - 1] = size1 % 2 == 0;
+
+		vertices2[length2 - 1] = vertices[i];
+		cycle2[length2 - 1] = f;
+		isInF2[length2 - 1] = size1 % 2 == 1;
+
+		addIfViolated(vertices1, cycle1, isInF1, x, edgeIndex, result);
+		addIfViolated(vertices2, cycle2, isInF2, x, edgeIndex, result);
+	}
+
+	/**
+	 * Find disconnection inequalities violated by a point (n <= 64).
+	 *
+	 * For each value t of the variables, the components of the graph without the edges such that x_e >= t are computed:
+	 * for two non-adjacent components A and B, the variables of delta(A) and delta(B) are at least t.
+	 * The inequality of each such pair is returned if it is violated. This is exact for the integer points (t = 1) and a heuristic otherwise.
+	 * @param x Value of the variable of each edge (x[e] for the e-th edge of {@code adj})
+	 * @return The violated disconnection inequalities (without duplicates)
+	 */
+	public List<Inequality> separateDisconnectionInequalities(double[] x) {
+
+		if(n > 64)
+			throw new IllegalArgumentException("The disconnection inequalities can only be separated for graphs with at most 64 vertices (" + n + ")");
+
+		BitGraph graph = new BitGraph(n, adj);
+		LinkedHashSet<Inequality> result = new LinkedHashSet<>();
+		TreeSet<Double> thresholds = new TreeSet<>();
+
+		for(int e = 0; e < adj.size(); e++)
+			if(x[e] > EPSILON)
+				thresholds.add(x[e]);
+
+		for(double t: thresholds) {
+
+			/* Components of the graph whose edges are those with x_e < t */
+			ArrayList<ArrayList<Integer>> kept = new ArrayList<>();
+
+			for(int e = 0; e < adj.size(); e++)
+				if(x[e] < t)
+					kept.add(adj.get(e));
+
+			BitGraph keptGraph = new BitGraph(n, kept);
+			List<Long> components = new ArrayList<>();
+			long remaining = keptGraph.allVertices();
+
+			while(remaining != 0) {
+				long component = Long.lowestOneBit(remaining);
+				long frontier = component;
+
+				while(frontier != 0) {
+					long next = 0;
+
+					for(long f = frontier; f != 0; f &= f - 1)
+						next |= neighbourhood(keptGraph, Long.lowestOneBit(f));
+
+					frontier = next & ~component;
+					component |= next;
+				}
+
+				components.add(component);
+				remaining &= ~component;
+			}
+
+			for(int i = 0; i < components.size(); i++)
+				for(int j = i + 1; j < components.size(); j++) {
+					long A = components.get(i);
+					long B = components.get(j);
+
+					if((closedNeighbourhood(graph, A) & B) != 0)
+						continue;
+
+					Inequality inequality = disconnectionInequality(A, B);
+
+					if(inequality != null) {
+						double lhs = 0;
+
+						for(int e = 0; e < adj.size(); e++)
+							lhs += inequality.coefficients[e] * x[e];
+
+						if(lhs > inequality.rhs + EPSILON)
+							result.add(inequality);
+					}
+				}
+		}
+
+		return new ArrayList<>(result);
+	}
+
+	/**
+	 * @return Index of the first edge between each pair of vertices (-1 if they are not adjacent)
+	 */
+	private int[][] getEdgeIndex() {
+
+		int[][] edgeIndex = new int[n + 1][n + 1];
+
+		for(int[] row: edgeIndex)
+			Arrays.fill(row, -1);
+
+		for(int e = adj.size() - 1; e >= 0; e--) {
+			int x1 = adj.get(e).get(0);
+			int x2 = adj.get(e).get(1);
+			edgeIndex[x1][x2] = e;
+			edgeIndex[x2][x1] = e;
+		}
+
+		return edgeIndex;
 	}
 
 }
@@ -1,32 +1,48 @@
 package bond;
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 
 import exception.InvalidIEQFileFormatException;
 import exception.UnknownCommandException;
 import exception.UnknownVariableName;
 import formulation.AbstractIntegerPoints;
+import formulation.Inequality;
+import formulation.InequalityOrbits;
 import formulation.IntegerPoint;
 import formulation.Variable;
+import graph.Automorphisms;
+import graph.BitGraph;
+import graph.BlockDecomposition;
 import graph.Graph;
+import utils.GraySubsetIterator;
+import utils.LargeGraySubsetIterator;
 public class BondIntegerPoints extends AbstractIntegerPoints{
 
 	int n; // nombre de sommets
 	int m; // nombre d'arêtes
 	ArrayList<ArrayList<Integer>> adj; // liste d'adjacence
+	EnumerationMode enumerationMode = EnumerationMode.ALL_SUBSETS; // façon d'énumérer les ensembles S
+	int parallelism = 1; // nombre de threads utilisés pour tester les ensembles S
+	boolean isBlockDecomposition = false; // vrai si les bonds sont énumérés dans chaque bloc séparément
+	BondFacetCache facetCache = null; // cache des facettes par classe d'isomorphisme (null si non utilisé)
 	
-	public BondIntegerPoints(int n,int m, ArrayList<ArrayList<Integer>> ajd) throws UnknownCommandException, IOException, InterruptedException {
+	public BondIntegerPoints(int n,int m, ArrayList<ArrayList<Integer>> adj) throws UnknownCommandException, IOException, InterruptedException {
 		//super();
 		this.n= n;
 		this.m = m;
 		this.adj = adj;
-		
-		// TODO Auto-generated constructor stub
 	}
 	public BondIntegerPoints(String inputFile) throws UnknownCommandException, IOException, InterruptedException {
 
@@ -97,38 +113,183 @@ public class BondIntegerPoints extends AbstractIntegerPoints{
 	}
 
 
+	/**
+	 * Les points dépendent du graphe (nombre de sommets et liste des arêtes) et de la façon d'énumérer les bonds
+	 * (en mode ALL_SUBSETS chaque bond est écrit deux fois, la décomposition en blocs change l'ordre des points)
+	 */
+	@Override
+	protected String getInstanceDescription() {
+		return super.getInstanceDescription() + "n = " + n + "\nedges = " + adj + "\nenumeration = " + enumerationMode + "\nblocks = " + isBlockDecomposition + "\n";
+	}
+
 	@Override
 	public void createIntegerPoints() throws UnknownVariableName {
-		ArrayList<ArrayList<Integer>> SE = getSE(n);
-		ArrayList<ArrayList<Integer>> cut ;
-		String s;
-		int x1;
-		int x2;
-		IntegerPoint point = new IntegerPoint(this);
-		for(int i = 0 ; i < SE.size();i++) {
-			if(verifieConSE(adj,SE.get(i),n)){
-				point = new IntegerPoint(this);
-				cut = getCut(SE.get(i));
-				for(int j = 0; j<cut.size();j++) {
-					x1= cut.get(j).get(0);
-					x2 = cut.get(j).get(1);
-					if(x1 < x2 ) {
-						s = "x" +x1 +""+x2;	
-					}else {
-						s = "x" +x2 +""+x1;	
-					}
-						
-					
-					point.setVariable(s, 1);
+
+		/* Chaque bond est inclus dans un bloc : les bonds sont énumérés bloc par bloc (le graphe doit être connexe) */
+		if(isBlockDecomposition && new BitGraph(n, adj).isConnected()) {
+
+			/* La coupe vide n'est ajoutée qu'une fois */
+			addIntegerPoint(new IntegerPoint(this));
+
+			for(int[] block: new BlockDecomposition(n, adj).getBlocks())
+				createBlockIntegerPoints(block);
+		}
+		else
+			new BondCutEnumerator(n, adj, enumerationMode, parallelism).enumerate(cut -> addIntegerPoint(createBondPoint(cut, null)));
+	}
+
+	/**
+	 * Add the points associated to the non-empty bonds of a block
+	 * @param block Indices in {@code adj} of the edges of the block
+	 * @throws UnknownVariableName
+	 */
+	private void createBlockIntegerPoints(int[] block) throws UnknownVariableName {
+
+		/* Renumber the vertices of the block from 1 */
+		HashMap<Integer, Integer> localId = new HashMap<>();
+		ArrayList<ArrayList<Integer>> blockAdj = new ArrayList<>();
+
+		for(int e: block) {
+			ArrayList<Integer> edge = new ArrayList<>();
+
+			for(int v: adj.get(e)) {
+				Integer id = localId.get(v);
+
+				if(id == null) {
+					id = localId.size() + 1;
+					localId.put(v, id);
 				}
-				//mettre à jour point
-				addIntegerPoint(point);
+
+				edge.add(id);
 			}
+
+			blockAdj.add(edge);
 		}
-		
 
-		
+		new BondCutEnumerator(localId.size(), blockAdj, enumerationMode, parallelism).enumerate(cut -> {
+			if(!isEmpty(cut))
+				addIntegerPoint(createBondPoint(cut, block));
+		});
+	}
+
+	private static boolean isEmpty(long[] mask) {
+		for(long word: mask)
+			if(word != 0)
+				return false;
+		return true;
+	}
+
+	/**
+	 * Choose if the bonds are enumerated separately in each block (2-connected component or bridge) of the graph.
+	 * As each bond is included in a block, the enumeration is then exponential in the size of the largest block rather than in n.
+	 * Each bond is obtained once in modes HALF_SUBSETS and CONNECTED_SETS. Only used if the graph is connected.
+	 * @param isBlockDecomposition
+	 */
+	public void setBlockDecomposition(boolean isBlockDecomposition) {
+		this.isBlockDecomposition = isBlockDecomposition;
+	}
+
+	public boolean isBlockDecomposition() {
+		return isBlockDecomposition;
+	}
+
+	/**
+	 * Use a persistent cache of facets: the facets of a graph isomorphic to a graph already considered are read from the cache instead of being computed with porta
+	 * @param facetCache The cache; null to always compute the facets
+	 */
+	public void setFacetCache(BondFacetCache facetCache) {
+		this.facetCache = facetCache;
+	}
+
+	public BondFacetCache getFacetCache() {
+		return facetCache;
+	}
+
+	/**
+	 * Write the facets in a file. If a cache is used, the facets are read from the cache when possible and added to it otherwise.
+	 * On a hit, no integer point is generated but the traf output file is still written so that the other methods can read it.
+	 * The cache is not used once points have been appended, since the facets then no longer depend on the graph only.
+	 */
+	@Override
+	public void writeFacetsInFile(String outputFile) throws UnknownVariableName, InvalidIEQFileFormatException, IOException {
+
+		if(facetCache == null || hasAppendedIntegerPoints()) {
+			super.writeFacetsInFile(outputFile);
+			return;
+		}
+
+		initializeVariables();
+
+		String outputTrafFile = sTmpPOIFile.replace(".poi", ".poi.ieq");
+		List<Inequality> facets = facetCache.get(n, adj);
+
+		if(facets != null) {
+			new File(outputTrafFile).getAbsoluteFile().getParentFile().mkdirs();
+
+			System.out.println("=== Facets found in the cache (output: " + outputTrafFile + ")");
+			Inequality.writeInequalities(outputTrafFile, variables.size(), facets);
+
+			System.out.println("=== Convert facets (input: " + outputTrafFile + ", output: " + outputFile + ")");
+			convertIEQFile(outputTrafFile, outputFile, true);
+		}
+		else {
+			super.writeFacetsInFile(outputFile);
+			facetCache.put(n, adj, Inequality.readInequalities(outputTrafFile, variables.size()));
+		}
+	}
+
+	/**
+	 * Set the number of threads used to test the subsets in {@code createIntegerPoints} (only used in modes ALL_SUBSETS and HALF_SUBSETS, with at most {@code GraySubsetIterator.MAX_ELEMENTS} enumerated vertices)
+	 * @param parallelism Number of threads (1 for a sequential enumeration)
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Set the way the vertex subsets S are enumerated in {@code createIntegerPoints} (ALL_SUBSETS by default, as in the first versions)
+	 * @param enumerationMode
+	 */
+	public void setEnumerationMode(EnumerationMode enumerationMode) {
+		this.enumerationMode = enumerationMode;
 	}
+
+	public EnumerationMode getEnumerationMode() {
+		return enumerationMode;
+	}
+
+	/**
+	 * Create the integer point whose coordinates are given by an edge mask
+	 * (the variable of the e-th edge of {@code adj} is the (e+1)-th variable registered in {@code createVariables})
+	 * @param cut The edge mask
+	 * @param edges Index in {@code adj} of each edge of the mask; null if the mask is over {@code adj}
+	 * @return The point
+	 */
+	private IntegerPoint createBondPoint(long[] cut, int[] edges) {
+
+		/* The mask is directly the bits of the point */
+		if(edges == null)
+			return new IntegerPoint(this, cut);
+
+		IntegerPoint point = new IntegerPoint(this);
+
+		for(int w = 0; w < cut.length; w++) {
+			long word = cut[w];
+
+			while(word != 0) {
+				int e = w * 64 + Long.numberOfTrailingZeros(word);
+				point.setVariable(edges[e] + 1, 1);
+				word &= word - 1;
+			}
+		}
+
+		return point;
+	}
+
 	public ArrayList<ArrayList<Integer>> getCut(ArrayList<Integer> SE){
 		ArrayList<Integer> SECOMP = new ArrayList<Integer>();
 		ArrayList<ArrayList<Integer>> result = new ArrayList<ArrayList<Integer>>();
@@ -193,29 +354,52 @@ public class BondIntegerPoints extends AbstractIntegerPoints{
 		}else return true;}
 		else return true;
 	}
+	/**
+	 * Get all the subsets of {1, ..., n}, the i-th one being the elements of the binary representation of i in decreasing order (as in the first versions)
+	 * @deprecated builds the 2^n subsets in memory; use {@link GraySubsetIterator} or {@link LargeGraySubsetIterator} to enumerate them one at a time
+	 */
+	@Deprecated
 	public static ArrayList<ArrayList<Integer>> getSE(int n){
-		int x = puissance(2,n);
-		String c;
-		String letter;
-		int taille;
 		ArrayList<ArrayList<Integer>> l = new ArrayList<ArrayList<Integer>>();
-		ArrayList<Integer> t;
-		for(int i = 0; i< x; i ++) {
-			c = Integer.toBinaryString(i);
-			taille = c.length();
-			t = new ArrayList<Integer>();
-			for(int j = 0; j <taille; j ++) {
-				letter = Character.toString(c.charAt(j));
-				if(letter.contentEquals("1")) {
-					t.add(taille - j);
-					
-				}
-			}
+		for(long i = 0; i < 1L << n; i++) {
+			ArrayList<Integer> t = maskToVertices(i);
+			Collections.reverse(t);
 			l.add(t);
 		}
 		return l;
-		
 	}
+
+	/**
+	 * Convert a bitmask into the list of the vertices it contains
+	 * @param mask Bitmask in which bit i-1 is set if vertex i is in the subset
+	 * @return The vertices of the subset in increasing order
+	 */
+	public static ArrayList<Integer> maskToVertices(long mask){
+		ArrayList<Integer> t = new ArrayList<Integer>(Long.bitCount(mask));
+		while(mask != 0) {
+			t.add(Long.numberOfTrailingZeros(mask) + 1);
+			mask &= mask - 1;
+		}
+		return t;
+	}
+
+	/**
+	 * Convert a long[] bitmask into the list of the vertices it contains
+	 * @param mask Bitmask in which bit (i-1) % 64 of word (i-1) / 64 is set if vertex i is in the subset
+	 * @return The vertices of the subset in increasing order
+	 */
+	public static ArrayList<Integer> maskToVertices(long[] mask){
+		ArrayList<Integer> t = new ArrayList<Integer>();
+		for(int w = 0; w < mask.length; w++) {
+			long word = mask[w];
+			while(word != 0) {
+				t.add(w * 64 + Long.numberOfTrailingZeros(word) + 1);
+				word &= word - 1;
+			}
+		}
+		return t;
+	}
+
 	public static int puissance(int p,int n) {
 		if(n==1) return p;
 		else return p * puissance(p,n-1);
@@ -230,6 +414,123 @@ public class BondIntegerPoints extends AbstractIntegerPoints{
 				
 	}
 	
+	/**
+	 * Get the permutations of the variables induced by the automorphisms of the graph
+	 * @return Generators of the group of symmetries of the bond polytope induced by the automorphisms of the graph (the variable of edge e has index e)
+	 */
+	public List<int[]> getVariablePermutations() {
+
+		List<int[]> permutations = new ArrayList<>();
+
+		for(int[] generator: new Automorphisms(n, adj).getGenerators())
+			permutations.add(Automorphisms.edgePermutation(adj, generator));
+
+		return permutations;
+	}
+
+	/**
+	 * Use porta to get the facets of the bond polytope and write one facet of each orbit under the automorphisms of the graph in a file.
+	 * The file has the same format as the one created by {@code writeFacetsInFile} and the size of its orbit is added after each facet.
+	 * @param outputFile The file in which the facets will be added
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 * @throws IOException
+	 */
+	public void writeFacetOrbitsInFile(String outputFile) throws UnknownVariableName, InvalidIEQFileFormatException, IOException {
+
+		writeFacetsInFile(sTmpConvertedFacetsFile);
+
+		String trafFile = sTmpPOIFile.replace(".poi", ".poi.ieq");
+
+		/* Read the facets in porta format and with the user names (each line of the converted file corresponds to the same line of the traf file) */
+		List<String> trafLines = Files.readAllLines(Paths.get(trafFile));
+		List<String> convertedLines = Files.readAllLines(Paths.get(sTmpConvertedFacetsFile));
+
+		List<Inequality> facets = new ArrayList<>();
+		List<Integer> facetLines = new ArrayList<>();
+		boolean isInFacetsSection = false;
+
+		for(int i = 0; i < trafLines.size(); i++) {
+			String line = trafLines.get(i);
+
+			if(line.contains("INEQUALITIES_SECTION"))
+				isInFacetsSection = true;
+			else if(line.contains("END"))
+				isInFacetsSection = false;
+			else if(isInFacetsSection && !line.trim().isEmpty()) {
+				facets.add(Inequality.parse(line, variables.size()));
+				facetLines.add(i);
+			}
+		}
+
+		InequalityOrbits orbits = new InequalityOrbits(facets, getVariablePermutations());
+
+		System.out.println("=== Reduce facets to orbit representatives (" + facets.size() + " facets, " + orbits.getRepresentatives().size() + " orbits, output: " + outputFile + ")");
+
+		BufferedWriter bw = new BufferedWriter(new FileWriter(outputFile));
+		isInFacetsSection = false;
+		int facetId = 0;
+
+		for(int i = 0; i < convertedLines.size(); i++) {
+			String line = convertedLines.get(i);
+
+			if(facetId < facetLines.size() && facetLines.get(facetId) == i) {
+
+				if(orbits.getRepresentative(facetId) == facetId)
+					bw.write(line.replaceAll("\\s+$", "") + "   [orbit size: " + orbits.getOrbitSize(facetId) + "]\n");
+
+				facetId++;
+			}
+			else
+				bw.write(line + "\n");
+		}
+
+		bw.close();
+	}
+
+	/**
+	 * Extract one facet of each orbit of the bond polytope under the automorphisms of the graph, with the size of its orbit
+	 * @return The representatives of the orbits
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 * @throws IOException
+	 */
+	public String getIPFacetOrbits() throws UnknownVariableName, InvalidIEQFileFormatException, IOException {
+
+		String sTmpFacetOrbitsFile = sTmpConvertedFacetsFile + "_orbits";
+		writeFacetOrbitsInFile(sTmpFacetOrbitsFile);
+
+		StringBuilder results = new StringBuilder();
+		boolean isInFacetsSection = false;
+
+		for(String line: Files.readAllLines(Paths.get(sTmpFacetOrbitsFile))) {
+
+			if(line.contains("INEQUALITIES_SECTION"))
+				isInFacetsSection = true;
+			else if(line.contains("END"))
+				isInFacetsSection = false;
+			else if(isInFacetsSection)
+				results.append(line).append("\n");
+		}
+
+		return results.toString();
+	}
+
+	/* Possible ways of enumerating the vertex subsets S such that delta(S) is a bond */
+	public enum EnumerationMode{
+
+			/* Test the 2^n subsets: as delta(S) = delta(V\S), each bond is obtained twice (default) */
+			ALL_SUBSETS,
+
+			/* Only test the 2^(n-1) subsets which contain vertex 1: each bond is obtained once */
+			HALF_SUBSETS,
+
+			/* Only build the connected sets S which contain vertex 1 and have a connected complement (see BondEnumerator):
+			 * each bond is obtained once and the running time depends on the number of bonds rather than on 2^n.
+			 * If the graph is not connected, the empty cut is its only bond (as in HALF_SUBSETS) */
+			CONNECTED_SETS
+		}
+
 	public enum Use{
 			
 			/* Get the dimension of the integer polytope of a formulation, also returns the hyperplans which include the polytope */
@@ -253,14 +554,16 @@ public class BondIntegerPoints extends AbstractIntegerPoints{
 		
 			try {
 				BondIntegerPoints b = new BondIntegerPoints("./data/test.txt");
-				ArrayList<ArrayList<Integer>> adj = b.adj;
 				int n = b.n;
-				ArrayList<ArrayList<Integer>> e = b.getSE(n);
-				for(int i= 0 ; i < e.size();i++) {
-					if(verifieConSE(adj,e.get(i),n)) {
-						System.out.println(e.get(i));
+				BitGraph graph = new BitGraph(n, b.adj);
+				GraySubsetIterator it = new GraySubsetIterator(n);
+				while(it.hasNext()) {
+					long S = it.nextSubset();
+					if(graph.isBond(S)) {
+						ArrayList<Integer> e = maskToVertices(S);
+						System.out.println(e);
 						System.out.println("tak");
-						System.out.println(b.getCut(e.get(i)));
+						System.out.println(b.getCut(e));
 					}
 				}
 				try {
@@ -0,0 +1,8 @@
+package exception;
+
+@SuppressWarnings("serial")
+public class InvalidPOIFileFormatException extends Exception {
+	
+	public InvalidPOIFileFormatException(String message) {super(message);}
+
+}
@@ -4,12 +4,18 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map.Entry;
+import java.util.function.Consumer;
 
 import exception.InvalidIEQFileFormatException;
 import exception.UnknownCommandException;
 import exception.UnknownVariableName;
-import utils.Command;
+import porta.IntegerPointEnumerator;
 
 /**
  * Representation of a polytope by its formulation
@@ -18,6 +24,12 @@ import utils.Command;
  */
 public abstract class AbstractFormulation extends AbstractPolytope{
 
+	/** True if the integer points are enumerated in this JVM (see {@code porta.IntegerPointEnumerator}) instead of running vint */
+	boolean isInternalVint = false;
+
+	/** Number of threads used by the enumeration in this JVM */
+	int vintParallelism = 1;
+
 	/**
 	 * At the creation of a formulation, check that the required commands are visible
 	 * @throws UnknownCommandException
@@ -29,6 +41,17 @@ public abstract class AbstractFormulation extends AbstractPolytope{
 	}
 
 	public abstract String getConstraints() throws UnknownVariableName;
+
+	/**
+	 * Write the constraints in the INEQUALITIES_SECTION of the ieq file.
+	 * By default, the string returned by {@code getConstraints} is written. A formulation whose constraints are too many to be stored in a string can override this method to write them one by one.
+	 * @param writer The writer of the ieq file
+	 * @throws IOException
+	 * @throws UnknownVariableName
+	 */
+	protected void writeConstraints(Writer writer) throws IOException, UnknownVariableName {
+		writer.write(getConstraints());
+	}
 	
 	/**
 	 * Generate the formulation in the default file
@@ -59,7 +82,7 @@ public abstract class AbstractFormulation extends AbstractPolytope{
 
 		/* Create the temporary folder if necessary */
 		if(!tmpFolder.exists())
-			tmpFolder.mkdir();
+			tmpFolder.mkdirs();
 
 		initializeVariables();
 
@@ -77,7 +100,7 @@ public abstract class AbstractFormulation extends AbstractPolytope{
 			bw.write("\n\nUPPER_BOUNDS\n");
 			bw.write(getUpperBound());
 			bw.write("\n\nINEQUALITIES_SECTION\n");
-			bw.write(getConstraints());
+			writeConstraints(bw);
 			
 			if(duplicateBoundsInConstrains)
 				bw.write(getBoundsConstraints());
@@ -234,21 +257,219 @@ public abstract class AbstractFormulation extends AbstractPolytope{
 
 	public void generateIntegerPoints() throws UnknownVariableName, InvalidIEQFileFormatException {
 
-		System.out.println("=== Generate the formulation (output: " + sTmpIEQFile + ")");
-		generateFormulation(sTmpIEQFile);
+		/* The formulation is quickly generated: when the computation is resumable, it is always generated so that the points are only extracted again if it changed */
+		if(!isInternalVint || isResumable) {
+			System.out.println("=== Generate the formulation (output: " + sTmpIEQFile + ")");
+			generateFormulation(sTmpIEQFile);
+		}
+
+		String parameters = isInternalVint ? "internal" : "vint";
+		List<File> formulation = Arrays.asList(new File(sTmpIEQFile));
+		List<File> points = Arrays.asList(new File(sTmpPOIFile));
+
+		if(isStageComplete("vint", parameters, formulation, points))
+			return;
+
+		if(isInternalVint) {
+			System.out.println("=== Extract the integer points (output: " + sTmpPOIFile + ")");
+
+			if(enumerateIntegerPoints(sTmpPOIFile) < 0)
+				return;
+		}
+		else {
+			System.out.println("=== Extract the integer points (input: " + sTmpIEQFile + ", output: " + sTmpPOIFile + ")");
+
+			/* The points of a failed run are removed so that the next commands fail instead of using them */
+			if(!vint(sTmpIEQFile)) {
+				new File(sTmpPOIFile).delete();
+				return;
+			}
+		}
+
+		completeStage("vint", parameters, formulation, points);
+	}
+
+	/**
+	 * Choose how the integer points are enumerated
+	 * @param isInternalVint True to enumerate them in this JVM by branch-and-bound (see {@code porta.IntegerPointEnumerator}); false to run vint
+	 */
+	public void setInternalVint(boolean isInternalVint) {
+		this.isInternalVint = isInternalVint;
+	}
+
+	public boolean isInternalVint() {
+		return isInternalVint;
+	}
 
-		System.out.println("=== Extract the integer points (input: " + sTmpIEQFile + ", output: " + sTmpPOIFile + ")");
-		vint(sTmpIEQFile);
-		
+	/**
+	 * @param parallelism Number of threads used by the enumeration in this JVM (1 for a sequential enumeration)
+	 */
+	public void setVintParallelism(int parallelism) {
+		this.vintParallelism = Math.max(1, parallelism);
+	}
+
+	/**
+	 * Give each constraint of the formulation to a consumer as an inequality over the porta variables, in the order of {@code writeConstraints}.
+	 * By default, each line written by {@code writeConstraints} is parsed as soon as it is complete, so that the constraints are never rendered as a whole.
+	 * A formulation which generates its constraints as inequalities can override this method to give them without writing them.
+	 * @param consumer Action performed on each constraint
+	 * @throws IOException
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException If a constraint cannot be parsed
+	 */
+	public void forEachConstraint(Consumer<Inequality> consumer) throws IOException, UnknownVariableName, InvalidIEQFileFormatException {
+
+		initializeVariables();
+
+		try (ConstraintLineWriter writer = new ConstraintLineWriter(variables.size(), consumer)){
+			writeConstraints(writer);
+		} catch (IOException e) {
+			if(e.getCause() instanceof InvalidIEQFileFormatException)
+				throw (InvalidIEQFileFormatException) e.getCause();
+
+			throw e;
+		}
+	}
+
+	/**
+	 * Get the constraints of the formulation as inequalities over the porta variables
+	 * @return The constraints written by {@code writeConstraints}, in the same order
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException If a constraint cannot be parsed
+	 */
+	public List<Inequality> getConstraintList() throws UnknownVariableName, InvalidIEQFileFormatException {
+
+		List<Inequality> constraints = new ArrayList<>();
+
+		try {
+			forEachConstraint(constraints::add);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		return constraints;
+	}
+
+	/**
+	 * Writer which parses each line of constraint written and gives the inequality to a consumer
+	 */
+	private static class ConstraintLineWriter extends Writer {
+
+		int dimension;
+		Consumer<Inequality> consumer;
+
+		/** Characters of the current line */
+		StringBuilder line = new StringBuilder();
+
+		ConstraintLineWriter(int dimension, Consumer<Inequality> consumer) {
+			this.dimension = dimension;
+			this.consumer = consumer;
+		}
+
+		@Override
+		public void write(char[] buffer, int offset, int length) throws IOException {
+
+			for(int i = offset; i < offset + length; i++)
+				if(buffer[i] == '\n')
+					endLine();
+				else
+					line.append(buffer[i]);
+		}
+
+		/**
+		 * Parse the current line (the parse errors are wrapped in an IOException as they are thrown from the writer)
+		 */
+		private void endLine() throws IOException {
+
+			String constraint = line.toString();
+			line.setLength(0);
+
+			if(constraint.trim().isEmpty())
+				return;
+
+			try {
+				consumer.accept(Inequality.parse(constraint, dimension));
+			} catch (InvalidIEQFileFormatException e) {
+				throw new IOException(e);
+			}
+		}
+
+		@Override
+		public void flush() {}
+
+		@Override
+		public void close() throws IOException {
+			endLine();
+		}
+	}
+
+	/**
+	 * Enumerate the integer points of the formulation in this JVM and write them in a .poi file as they are found
+	 * @param poiFile Path of the output file
+	 * @return The number of points; -1 if the points could not be written, in which case the .poi file is removed so that the next commands fail instead of using a truncated file
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException If a constraint cannot be parsed
+	 */
+	public long enumerateIntegerPoints(String poiFile) throws UnknownVariableName, InvalidIEQFileFormatException {
+
+		initializeVariables();
+
+		/* Only the integer values within the bounds are considered */
+		long[] lowerBounds = new long[variables.size()];
+		long[] upperBounds = new long[variables.size()];
+
+		for(Entry<Integer, Variable> entry: variables.entrySet()) {
+			Variable v = entry.getValue();
+			lowerBounds[entry.getKey() - 1] = -Math.floorDiv(-v.lowerBoundNumerator, v.lowerBoundDenominator);
+			upperBounds[entry.getKey() - 1] = Math.floorDiv(v.upperBoundNumerator, v.upperBoundDenominator);
+		}
+
+		IntegerPointEnumerator enumerator = new IntegerPointEnumerator(lowerBounds, upperBounds);
+		enumerator.setParallelism(vintParallelism);
+
+		/* The constraints are given to the enumerator as they are generated */
+		try {
+			forEachConstraint(enumerator::addConstraint);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		new File(poiFile).getAbsoluteFile().getParentFile().mkdirs();
+
+		long count = 0;
+
+		try (POIWriter writer = new POIWriter(poiFile, variables.size(), getvariablesindex())){
+
+			count = enumerator.enumerate(point -> {
+				try {
+					writer.write(point);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+
+		} catch (IOException | UncheckedIOException e) {
+			e.printStackTrace();
+			new File(poiFile).delete();
+			return -1;
+		}
+
+		System.out.println("number of valid integral points: " + count);
+
+		return count;
 	}
 
 	/**
 	 * Compute all the integers points for the formulation contained in <inputFile>.
 	 * @param inputFile Path to the .ieq file which contains the formulation
+	 * @return False if vint failed
 	 * @throws InvalidIEQFileFormatException 
 	 */
-	private static void vint(String inputFile) throws InvalidIEQFileFormatException{
-		String result = Command.execute("vint " + inputFile);
+	private boolean vint(String inputFile) throws InvalidIEQFileFormatException{
+		String result = runPorta("vint", inputFile);
+
+		if(result == null)
+			return false;
 
 		String[] sResult = result.split("number of valid integral points");
 
@@ -270,6 +491,8 @@ public abstract class AbstractFormulation extends AbstractPolytope{
 			throw new InvalidIEQFileFormatException(lines[lines.length-1] + error + sInvalid[1].split("\n")[0]);
 
 		}
+
+		return true;
 	}
 	
 }
@@ -1,15 +1,26 @@
 package formulation;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import exception.InvalidIEQFileFormatException;
 import exception.UnknownCommandException;
 import exception.UnknownVariableName;
+import porta.AffineHull;
+import porta.DoubleDescription;
+import utils.StageCheckpoints;
 
 /**
  * Representation of a polytope by its integer points (i.e., feasible integer solutions)
@@ -25,30 +36,409 @@ public abstract class AbstractIntegerPoints extends AbstractPolytope{
 	
 	private List<IntegerPoint> integerPoints;
 
+	/** True if the points are written in the .poi file as soon as they are created instead of being stored in {@code integerPoints} */
+	private boolean isStreaming = true;
+
+	/** Consumer to which the points are forwarded as soon as they are created; null if the points are stored in {@code integerPoints} */
+	private Consumer<IntegerPoint> integerPointConsumer = null;
+
+	/** True if the points are given to traf through a named pipe instead of a .poi file */
+	private boolean isNamedPipe = false;
+
+	/** Points added by {@code appendIntegerPoints} (they are created after the points of {@code createIntegerPoints}) */
+	private List<IntegerPoint> appendedIntegerPoints = new ArrayList<>();
+
+	/** Double description of the points kept by {@code computeFacets}; null if the facets have not been computed in this JVM */
+	private DoubleDescription facetDescription = null;
+
+	/** True if the duplicated points are dropped when they are created (false by default, so that the .poi file contains every created point) */
+	private boolean isDeduplicating = false;
+
+	/** Maximal number of bytes used to detect the duplicated points (they are then detected with files in the temporary folder); the points are kept in memory within this budget only */
+	private long deduplicationMemoryBytes = IntegerPointSet.DEFAULT_MEMORY_BYTES;
+
+	/** Points created by the current call to {@code createAllIntegerPoints}; null if the points are not deduplicated */
+	private IntegerPointSet createdIntegerPoints = null;
+
+	/** Number of duplicated points dropped during the last creation of the points */
+	private long duplicateCount = 0;
+
 	
 	protected void addIntegerPoint(IntegerPoint point) {
-		this.integerPoints.add(point);
+
+		if(createdIntegerPoints != null)
+			try {
+				if(!createdIntegerPoints.add(point))
+					return;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+
+		usePoint(point);
+	}
+
+	/**
+	 * Forward a new point to the consumer or store it
+	 */
+	private void usePoint(IntegerPoint point) {
+		if(integerPointConsumer != null)
+			integerPointConsumer.accept(point);
+		else
+			this.integerPoints.add(point);
+	}
+
+	/**
+	 * Choose if the duplicated points are dropped when they are created (each point given to traf adds work to its double description)
+	 * @param isDeduplicating True to drop the duplicated points
+	 */
+	public void setDeduplicating(boolean isDeduplicating) {
+		this.isDeduplicating = isDeduplicating;
+	}
+
+	public boolean isDeduplicating() {
+		return isDeduplicating;
+	}
+
+	/**
+	 * @param memoryBytes Maximal number of bytes used to detect the duplicated points (IntegerPointSet.DEFAULT_MEMORY_BYTES by default); beyond, the points are sorted in files of the temporary folder
+	 * and the points which are not given as soon as they are created are given at the end of the creation. The whole budget is allocated once the points are spilled, in every mode (files or named pipe)
+	 */
+	public void setDeduplicationMemoryBytes(long memoryBytes) {
+		this.deduplicationMemoryBytes = memoryBytes;
+	}
+
+	/**
+	 * @return Number of duplicated points dropped during the last creation of the points
+	 */
+	public long getDuplicateCount() {
+		return duplicateCount;
+	}
+
+	/**
+	 * Choose how the points are written in the .poi file
+	 * @param isStreaming True if each point is written in the file as soon as it is created (the memory used does not depend on the number of points);
+	 * false if all the points are first stored in memory
+	 */
+	public void setStreaming(boolean isStreaming) {
+		this.isStreaming = isStreaming;
+	}
+
+	public boolean isStreaming() {
+		return isStreaming;
+	}
+
+	/**
+	 * Forward each point to a consumer as soon as it is created instead of storing it
+	 * @param consumer The consumer; null to store the points in memory
+	 */
+	public void setIntegerPointConsumer(Consumer<IntegerPoint> consumer) {
+		this.integerPointConsumer = consumer;
 	}
 	
 	/**
-	 * Function which fills the list {@code integerPoints}
+	 * Choose how the points are given to traf when computing the facets.
+	 * With a named pipe, traf is started on a FIFO created at the location of the .poi file and the points are written in the FIFO as they are created:
+	 * the generation of the points overlaps with the reading of the input by traf and the points are never written on the disk (the FIFO is removed afterwards).
+	 * If the FIFO cannot be created (no mkfifo command), a .poi file is used.
+	 * @param isNamedPipe True to use a named pipe; false to write a .poi file before starting traf
+	 */
+	public void setNamedPipe(boolean isNamedPipe) {
+		this.isNamedPipe = isNamedPipe;
+	}
+
+	public boolean isNamedPipe() {
+		return isNamedPipe;
+	}
+
+	@Override
+	public void writeFacetsInFile(String outputFile) throws UnknownVariableName, InvalidIEQFileFormatException, IOException {
+
+		/* The points are directly given to the double description: no .poi file is needed */
+		if(isInternalTraf) {
+			String outputTrafFile = sTmpPOIFile.replace(".poi", ".poi.ieq");
+			new File(outputTrafFile).getAbsoluteFile().getParentFile().mkdirs();
+
+			initializeVariables();
+
+			List<File> facetsFile = Arrays.asList(new File(outputTrafFile));
+
+			if(!isStageComplete("traf", "internal " + pointsParameters(), Collections.emptyList(), facetsFile)) {
+				List<Inequality> facets;
+
+				/* The description of the points is reused if the facets have already been computed */
+				if(facetDescription != null) {
+					System.out.println("=== Get the facets (output: " + outputTrafFile + ")");
+					facets = facetDescription.getInequalities();
+				}
+				else {
+					System.out.println("=== Generate the integer points and get the facets (output: " + outputTrafFile + ")");
+					facets = computeFacets();
+				}
+
+				Inequality.writeInequalities(outputTrafFile, variables.size(), facets);
+				completeStage("traf", "internal " + pointsParameters(), Collections.emptyList(), facetsFile);
+			}
+
+			System.out.println("=== Convert facets (input: " + outputTrafFile + ", output: " + outputFile + ")");
+			convertIEQFile(outputTrafFile, outputFile, true);
+			return;
+		}
+
+		if(!isNamedPipe) {
+			super.writeFacetsInFile(outputFile);
+			return;
+		}
+
+		String outputTrafFile = sTmpPOIFile.replace(".poi", ".poi.ieq");
+		List<File> facetsFile = Arrays.asList(new File(outputTrafFile));
+
+		initializeVariables();
+
+		if(!isStageComplete("traf", "pipe " + pointsParameters(), Collections.emptyList(), facetsFile)) {
+			System.out.println("=== Generate the integer points and get the facets (named pipe: " + sTmpPOIFile + ", output: " + outputTrafFile + ")");
+
+			if(runOnNamedPipe("traf") == null) {
+				System.out.println("=== Unable to create a named pipe, a .poi file is used");
+				super.writeFacetsInFile(outputFile);
+				return;
+			}
+
+			completeStage("traf", "pipe " + pointsParameters(), Collections.emptyList(), facetsFile);
+		}
+
+		System.out.println("=== Convert facets (input: " + outputTrafFile + ", output: " + outputFile + ")");
+		convertIEQFile(outputTrafFile, outputFile, true);
+	}
+
+	/**
+	 * Compute the facets of the convex hull of the integer points in this JVM with an exact double description (see {@code porta.DoubleDescription}).
+	 * Each point is added to the description as soon as it is created, so that the points are neither stored nor written in a file.
+	 * @return The equations of the affine hull followed by the facets, over the porta variables
+	 * @throws UnknownVariableName
+	 */
+	public List<Inequality> computeFacets() throws UnknownVariableName {
+
+		initializeVariables();
+
+		DoubleDescription dd = new DoubleDescription(variables.size());
+		Consumer<IntegerPoint> userConsumer = integerPointConsumer;
+		Consumer<IntegerPoint> ddConsumer = p -> dd.addPoint(p.getCoordinates());
+
+		try {
+			integerPointConsumer = userConsumer == null ? ddConsumer : ddConsumer.andThen(userConsumer);
+			createAllIntegerPoints();
+		}
+		finally {
+			integerPointConsumer = userConsumer;
+		}
+
+		facetDescription = dd;
+
+		return dd.getInequalities();
+	}
+
+	/**
+	 * Add integer points to a polytope whose facets have already been computed by {@code computeFacets} (they are computed first otherwise).
+	 * The description of the convex hull is updated: only the facets violated by the new points are replaced.
+	 * The points are also included in the .poi files and in the facets written afterwards.
+	 * @param points The new points
+	 * @return The equations of the affine hull followed by the facets of the convex hull of all the points, over the porta variables
+	 * @throws UnknownVariableName
+	 */
+	public List<Inequality> appendIntegerPoints(Collection<IntegerPoint> points) throws UnknownVariableName {
+
+		appendedIntegerPoints.addAll(points);
+
+		if(facetDescription == null)
+			return computeFacets();
+
+		for(IntegerPoint p: points)
+			facetDescription.addPoint(p.getCoordinates());
+
+		return facetDescription.getInequalities();
+	}
+
+	/**
+	 * @return True if points have been added by {@code appendIntegerPoints} (the polytope is then not only defined by its instance)
+	 */
+	public boolean hasAppendedIntegerPoints() {
+		return !appendedIntegerPoints.isEmpty();
+	}
+
+	/**
+	 * Create the integer points of {@code createIntegerPoints} followed by the points added by {@code appendIntegerPoints}
+	 * @throws UnknownVariableName
+	 */
+	private void createAllIntegerPoints() throws UnknownVariableName {
+
+		if(isDeduplicating)
+			createdIntegerPoints = new IntegerPointSet(this, deduplicationMemoryBytes, new File(sTmpFolder));
+
+		try {
+			createIntegerPoints();
+
+			for(IntegerPoint p: appendedIntegerPoints)
+				addIntegerPoint(p);
+
+			if(createdIntegerPoints != null) {
+
+				/* The points which have not been checked when they were created */
+				createdIntegerPoints.flush(this::usePoint);
+				duplicateCount = createdIntegerPoints.getDuplicateCount();
+
+				if(duplicateCount > 0)
+					System.out.println("=== " + duplicateCount + " duplicated integer points dropped");
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		finally {
+			if(createdIntegerPoints != null) {
+				createdIntegerPoints.close();
+				createdIntegerPoints = null;
+			}
+		}
+	}
+
+	/**
+	 * Compute in this JVM the affine hull of the integer points.
+	 * Each point is added to the affine hull as soon as it is created, so that the points are neither stored nor written in a file.
+	 * @return The dimension and the equations (over the porta variables) of the affine hull
+	 * @throws UnknownVariableName
+	 */
+	@Override
+	public AffineHull getIPAffineHull() throws UnknownVariableName {
+
+		initializeVariables();
+
+		AffineHull hull = new AffineHull(variables.size());
+		Consumer<IntegerPoint> userConsumer = integerPointConsumer;
+		Consumer<IntegerPoint> hullConsumer = p -> hull.addPoint(p.getCoordinates());
+
+		try {
+			integerPointConsumer = userConsumer == null ? hullConsumer : hullConsumer.andThen(userConsumer);
+			createAllIntegerPoints();
+		}
+		finally {
+			integerPointConsumer = userConsumer;
+		}
+
+		return hull;
+	}
+
+	/**
+	 * Create a named pipe at the location of the .poi file, start a porta command on it and write the integer points in the pipe
+	 *
+	 * The writer only opens the pipe for writing and porta only opens it for reading, so that each opening waits for the other one (e.g., while porta waits in the queue of a scheduler)
+	 * and porta reads the end of the points when the writer closes the pipe.
+	 * If porta stops without opening the pipe, the writer would wait forever: once porta has ended, the pipe is briefly opened in read-write mode until the writer is done,
+	 * which releases its opening (its next writes then fail as the pipe has no reader).
+	 * @param command The porta command (its argument is the path of the pipe)
+	 * @return The output of the command; null if the named pipe could not be created
+	 * @throws UnknownVariableName
+	 * @throws IOException If the command failed or if the points could not be written in the pipe
+	 */
+	private String runOnNamedPipe(String command) throws UnknownVariableName, IOException {
+
+		File pipe = new File(sTmpPOIFile);
+		pipe.getAbsoluteFile().getParentFile().mkdirs();
+		pipe.delete();
+
+		if(!createNamedPipe(pipe))
+			return null;
+
+		try {
+			CountDownLatch isWriterDone = new CountDownLatch(1);
+
+			FutureTask<String> porta = new FutureTask<>(() -> {
+				String output = runPorta(command, sTmpPOIFile);
+
+				/* The writer may have reached the opening of the pipe after a release: it is released again until it is done */
+				while(!isWriterDone.await(100, TimeUnit.MILLISECONDS))
+					try {
+						new RandomAccessFile(pipe, "rw").close();
+					} catch (IOException e) {}
+
+				return output;
+			});
+
+			new Thread(porta, command).start();
+
+			IOException writerError = null;
+
+			try {
+				writeIntegerPoints(sTmpPOIFile);
+			} catch (IOException | UncheckedIOException e) {
+				writerError = e instanceof IOException ? (IOException) e : ((UncheckedIOException) e).getCause();
+			}
+			finally {
+				isWriterDone.countDown();
+			}
+
+			String output;
+
+			try {
+				output = porta.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException(e);
+			} catch (ExecutionException e) {
+				throw new IOException(e.getCause());
+			}
+
+			/* The failure of porta is reported first: it is the cause of the writing errors in that case */
+			if(output == null)
+				throw new IOException("The command " + command + " failed on the named pipe " + sTmpPOIFile);
+
+			if(writerError != null)
+				throw writerError;
+
+			return output;
+		}
+		finally {
+			pipe.delete();
+		}
+	}
+
+	/**
+	 * Create a named pipe (the path is given as a single argument to mkfifo)
+	 * @param pipe The location of the pipe
+	 * @return True if the pipe has been created
+	 */
+	private static boolean createNamedPipe(File pipe) {
+
+		try {
+			Process mkfifo = new ProcessBuilder("mkfifo", pipe.getPath()).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+			return mkfifo.waitFor() == 0 && pipe.exists();
+		} catch (IOException e) {
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Function which creates the integer points by calling {@code addIntegerPoint} on each of them
 	 * @throws UnknownVariableName 
 	 */
 	public abstract void createIntegerPoints() throws UnknownVariableName;
 	
 	/**
 	 * Generate the integer points file in the default location
+	 * @return False if the file could not be written (it is then removed)
 	 * @throws UnknownVariableName
 	 */
-	public void writeIntegerPointsInDefaultFile() throws UnknownVariableName{
-		writeIntegerPointsInFile(sTmpPOIFile);
+	public boolean writeIntegerPointsInDefaultFile() throws UnknownVariableName{
+		return writeIntegerPointsInFile(sTmpPOIFile);
 	}
 
 	/** Generate the integer points file in a specified location
 	 * @param ieqFile The considered file
+	 * @return False if the file could not be written; it is then removed so that the next commands fail instead of using a truncated file
 	 * @throws UnknownVariableName
 	 */
-	public void writeIntegerPointsInFile(String ieqFile) throws UnknownVariableName{
+	public boolean writeIntegerPointsInFile(String ieqFile) throws UnknownVariableName{
 
 		File tmpFile = new File(ieqFile);
 
@@ -64,40 +454,117 @@ public abstract class AbstractIntegerPoints extends AbstractPolytope{
 
 		/* Create the temporary folder if necessary */
 		if(!tmpFolder.exists())
-			tmpFolder.mkdir();
+			tmpFolder.mkdirs();
+
+		try {
+			writeIntegerPoints(ieqFile);
+		} catch (IOException | UncheckedIOException e) {
+			e.printStackTrace();
+			tmpFile.delete();
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Create the integer points and write them in a porta poi file
+	 * @param ieqFile The considered file
+	 * @throws UnknownVariableName
+	 * @throws IOException If the file cannot be written
+	 */
+	private void writeIntegerPoints(String ieqFile) throws UnknownVariableName, IOException {
 
 		initializeVariables();
-		createIntegerPoints();
 
-		/* Create the porta ieq file */ 
-		FileWriter fw;
-		try {
-			fw = new FileWriter(tmpFile);
-			BufferedWriter bw = new BufferedWriter(fw);
+		/* Create the porta poi file */ 
+		if(isStreaming) {
+			Consumer<IntegerPoint> userConsumer = integerPointConsumer;
+
+			try (POIWriter writer = new POIWriter(ieqFile, variables.size(), getvariablesindex())){
 
-			bw.write("DIM=" + variables.size() + "\n\n");
-			
-			bw.write("CONV_SECTION\n");
-			
-			for(IntegerPoint p: this.integerPoints)
-				bw.write(p + "\n");
+				integerPointConsumer = userConsumer == null ? writer : writer.andThen(userConsumer);
+				createAllIntegerPoints();
 
-			bw.write("\n\nEND\n");
+			}
+			finally {
+				integerPointConsumer = userConsumer;
+			}
+		}
+		else {
+			Consumer<IntegerPoint> userConsumer = integerPointConsumer;
+			Consumer<IntegerPoint> store = integerPoints::add;
 
-			bw.write(getvariablesindex());
-			bw.flush();
-			bw.close();
+			/* The points are always stored, and also forwarded to the consumer if any */
+			try {
+				integerPointConsumer = userConsumer == null ? store : store.andThen(userConsumer);
+				createAllIntegerPoints();
+			}
+			finally {
+				integerPointConsumer = userConsumer;
+			}
 
-		} catch (IOException e) {
-			e.printStackTrace();
+			try (POIWriter writer = new POIWriter(ieqFile, variables.size(), getvariablesindex())){
+
+				for(IntegerPoint p: this.integerPoints)
+					writer.accept(p);
+
+			}
+			finally {
+				integerPoints.clear();
+			}
 		}
 	}
 	
 	public void generateIntegerPoints() throws UnknownVariableName {
 
+		initializeVariables();
+
+		List<File> points = Arrays.asList(new File(sTmpPOIFile));
+
+		if(isStageComplete("points", pointsParameters(), Collections.emptyList(), points))
+			return;
+
 		System.out.println("=== Generate the integer points (output: " + sTmpPOIFile + ")");
-		writeIntegerPointsInDefaultFile();
-			
+
+		if(!writeIntegerPointsInDefaultFile())
+			return;
+
+		completeStage("points", pointsParameters(), Collections.emptyList(), points);
+	}
+
+	/**
+	 * @return What the integer points depend on, recorded with the completed stages:
+	 * the class of the polytope and a digest of its instance (see {@code getInstanceDescription}) and of the appended points
+	 */
+	private String pointsParameters() {
+
+		StringBuilder sb = new StringBuilder(getInstanceDescription());
+
+		for(IntegerPoint p: appendedIntegerPoints)
+			sb.append("\nappended ").append(p);
+
+		return getClass().getName() + " " + variables.size() + " variables " + appendedIntegerPoints.size() + " appended points " + StageCheckpoints.digest(sb.toString());
+	}
+
+	/**
+	 * Describe the data which define the integer points, so that a stage completed for another instance is not reused when a temporary folder is reused.
+	 * By default, the name and the bounds of the variables and the settings which change the content of the .poi file;
+	 * the subclasses whose points depend on other data (e.g., a graph, weights, an enumeration setting) must add them.
+	 * @return The description of the instance
+	 */
+	protected String getInstanceDescription() {
+
+		StringBuilder sb = new StringBuilder("deduplicating = " + isDeduplicating + "\n");
+
+		for(int i = 1; i <= variables.size(); i++) {
+			Variable v = variables.get(i);
+			sb.append(v.originalName).append(' ')
+			.append(v.lowerBoundNumerator).append('/').append(v.lowerBoundDenominator).append(' ')
+			.append(v.upperBoundNumerator).append('/').append(v.upperBoundDenominator).append('\n');
+		}
+
+		return sb.toString();
 	}
 	
 	/**
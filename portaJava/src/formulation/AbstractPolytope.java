@@ -2,22 +2,43 @@ package formulation;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import exception.InvalidIEQFileFormatException;
+import exception.InvalidPOIFileFormatException;
 import exception.UnknownCommandException;
 import exception.UnknownVariableName;
+import porta.AffineHull;
+import porta.Traf;
 import utils.Command;
+import utils.PortaCache;
+import utils.PortaScheduler;
+import utils.StageCheckpoints;
+import utils.ProcessRunner;
 import utils.Utility;
 
 /**
@@ -25,10 +46,13 @@ import utils.Utility;
  * The polytope can be represented by:
  * - its linear formulation (class AbstractFormulation)
  * - its integer points (class AbstractIntegerPoints)
+ *
+ * The temporary folder created for an instance (in TMP_ROOT) is removed by {@code close}, or when the JVM exits, unless the computation is resumable.
+ * A folder given to {@code setTmpFolder} is never removed.
  * @author zach
  *
  */
-public abstract class AbstractPolytope {
+public abstract class AbstractPolytope implements Closeable {
 
 	/** Hashmap which contains all the variables indexed by their id in porta */
 	protected HashMap<Integer, Variable> variables = new HashMap<>();
@@ -36,21 +60,88 @@ public abstract class AbstractPolytope {
 	/** Hashmap which contains all id in porta indexed by their original name */
 	protected HashMap<String, Integer> variablesBis = new HashMap<>();
 
-	String sTmpFolder = "./.tmp";
+	/** Folder which contains the temporary folder of each instance */
+	public static final String TMP_ROOT = "./.tmp";
+
+	/** Number of instances created in this JVM */
+	private static final AtomicLong instanceCount = new AtomicLong();
+
+	/** Temporary folders of the instances which must be removed when the JVM exits (the folders created for the instances, until they are closed) */
+	private static final Set<String> foldersToDelete = ConcurrentHashMap.newKeySet();
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			for(String folder: foldersToDelete)
+				try {
+					deleteFolder(folder);
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+		}, "tmp folders cleanup"));
+	}
+
+	/** Temporary folder of this instance: its name contains the pid of the JVM and the number of the instance so that two instances (in the same JVM or not) never share their files */
+	String sTmpFolder = TMP_ROOT + "/" + ProcessHandle.current().pid() + "_" + instanceCount.incrementAndGet();
+
+	/** True if the temporary folder has been created for this instance (false if it has been given to {@code setTmpFolder}) */
+	boolean isTmpFolderOwned = true;
 	String sTmpFileCanonicName = "tmp";
+
 	public String sTmpPOIFile = sTmpFolder + "/" + sTmpFileCanonicName + ".poi";
 	public String sTmpConvertedPOIFile = sTmpPOIFile + "_converted";
 	public String sTmpConvertedFacetsFile = sTmpFolder + "/" + sTmpFileCanonicName + ".poi.ieq_converted";
 	public String sTmpConvertedIntegerPointsFile =  sTmpPOIFile + "_converted";
 	public String sTmpIEQFile = sTmpFolder + "/" + sTmpFileCanonicName + ".ieq";
+
+	/** Scheduler which runs the porta commands of this instance; null if they are run directly */
+	PortaScheduler portaScheduler = null;
+	int portaPriority = 0;
+	PortaScheduler.Budget portaBudget = PortaScheduler.Budget.NONE;
+
+	/** True if traf is replaced by the in-process double description (see {@code porta.Traf}) when it is applied on a .poi file */
+	boolean isInternalTraf = false;
+
+	/** True if dim is replaced by the in-process computation of the affine hull (see {@code porta.AffineHull}) */
+	boolean isInternalDim = false;
+
+	/** Cache of the results of the porta commands of this instance; null if they are always run */
+	PortaCache portaCache = null;
+
+	/** True if the completed stages of the computation of the facets are recorded in the temporary folder so that an interrupted computation can be resumed */
+	boolean isResumable = false;
 	
-	NumberFormat nf = new DecimalFormat("#0.00");
 
 	
 	public AbstractPolytope() throws UnknownCommandException, IOException, InterruptedException {
 		Command.checkCommand("traf");
 		Command.checkCommand("vint");
 		Command.checkCommand("dim");
+
+		foldersToDelete.add(sTmpFolder);
+	}
+
+	/**
+	 * Change the folder in which the temporary files are created (e.g., to run several polytopes at the same time without sharing their files)
+	 * @param folder Path of the folder (created if necessary)
+	 */
+	public void setTmpFolder(String folder) {
+
+		new File(folder).mkdirs();
+
+		if(isTmpFolderOwned)
+			foldersToDelete.remove(sTmpFolder);
+
+		isTmpFolderOwned = false;
+		sTmpFolder = folder;
+		sTmpPOIFile = sTmpFolder + "/" + sTmpFileCanonicName + ".poi";
+		sTmpConvertedPOIFile = sTmpPOIFile + "_converted";
+		sTmpConvertedFacetsFile = sTmpFolder + "/" + sTmpFileCanonicName + ".poi.ieq_converted";
+		sTmpConvertedIntegerPointsFile =  sTmpPOIFile + "_converted";
+		sTmpIEQFile = sTmpFolder + "/" + sTmpFileCanonicName + ".ieq";
+	}
+
+	public String getTmpFolder() {
+		return sTmpFolder;
 	}
 
 	/* Create the variables if necessary */
@@ -91,178 +182,125 @@ public abstract class AbstractPolytope {
 
 		initializeVariables();
 
-		InputStream ips=new FileInputStream(inputIEQFile); 
-		InputStreamReader ipsr=new InputStreamReader(ips);
-		BufferedReader br=new BufferedReader(ipsr);
-
-		FileWriter fw = new FileWriter(convertedIEQFile);
-		BufferedWriter bw = new BufferedWriter(fw);
+		try(BufferedWriter bw = new BufferedWriter(new FileWriter(convertedIEQFile))){
 
-		String ligne;
+			/* The constraints keep the layout of the file */
+			if(!removeMinuses) {
+				try(BufferedReader br = new BufferedReader(new FileReader(inputIEQFile))){
+					String line;
 
-		while ((ligne=br.readLine())!=null){
-			String ligne2 = ligne;
-
-			if(removeMinuses)
-				ligne2 = removeMinusesInConstraints(ligne);
-			else {
-				ligne2.replaceAll("\\+", " + ");
-				ligne2.replaceAll("-", " - ");
-				ligne2.replaceAll("<", " <");
-				ligne2.replaceAll(">", " >");
-				ligne2.replaceAll("==", " ==");
+					while((line = br.readLine()) != null)
+						bw.write(replacePortaVariablesInString(line) + "\n");
+				}
 
-				ligne2.replaceAll("  ", " ");
-				ligne2.replaceAll("  ", " ");
+				return;
 			}
-			
-			bw.write(replacePortaVariablesInString(ligne2) + "\n");
-			bw.flush();
-		}
 
-		bw.close();
-		br.close();
-
-	}
-	
-
-	/**
-	 * To ease the readibility of the constraints, change the side of the constraint terms which have a negative coefficient 
-	 * @param s String which contains the constraint
-	 * @return
-	 */
-	private String removeMinusesInConstraints(String s) {
-
-		/* Position of the character '-' or '+' of the current variable */
-		int currentSignPosition = -2;
-		boolean isCurrentVariablePositive = false;
-
-		int indexOfBracket = s.indexOf(")");
-		String result = s;
-
-		if(s.length() > 0) {
-
-			List<String> positiveVar = new ArrayList<>();
-			List<String> negativeVar = new ArrayList<>();
-			int i = Math.max(0, indexOfBracket);
-			char c = s.charAt(i);
-
-			while(c != '<' && c != '=' && c != '>' && i < s.length()){
-
-				/* If this is the beginning of a new variable 
-				 * (i.e., <c> contains a sign or, if this is the first variable, <c> contains 'x') */
-				if(c == '-' || c == '+' || (c == 'x' || Character.isDigit(c)) && currentSignPosition == -2) {
-
-					/* If it is not the first variable */
-					if(currentSignPosition != -2) {
-
-						/* Get the string associated to the new variable */
-						String variable = s.substring(currentSignPosition+1, i).replace(" ", "");
-
-						if(isCurrentVariablePositive)
-							positiveVar.add(variable);
-						else
-							negativeVar.add(variable);
+			PortaParser.parseIEQ(inputIEQFile, variables.size(), new PortaParser.Handler() {
 
+				@Override
+				public void inequality(int number, Inequality inequality) throws IOException {
+					try {
+						bw.write(removeMinusesInConstraint(number, inequality) + "\n");
+					} catch (UnknownVariableName e) {
+						throw new IOException(e);
 					}
-
-					isCurrentVariablePositive = c != '-';
-
-					if(c != 'x' && !Character.isDigit(c))
-						currentSignPosition = i;
-					else
-						currentSignPosition = i-1;
 				}
 
-				i++;
-
-				if(i < s.length())
-					c = s.charAt(i);
-
-			}
-
-			/* If:
-			 * - the end of the string has not been reached;
-			 * - at least one variable has been found in the LHS;
-			 * - no variable appear in the RHS.
-			 */
-			if(i < s.length() && currentSignPosition != -2 && !s.substring(i).contains("x")) {
-
-				/* Add the last variable */
+				@Override
+				public void point(PortaParser.Section section, int number, POIReader.Point point) throws IOException {
+					otherLine(numberPrefix(number) + point.toPortaString());
+				}
 
-				/* Get the string associated to the new variable */
-				String variable = s.substring(currentSignPosition+1, i).replace(" ", "");
+				@Override
+				public void otherLine(ByteBuffer buffer, int start, int end) throws IOException {
+					otherLine(PortaParser.lineToString(buffer, start, end));
+				}
 
-				if(isCurrentVariablePositive)
-					positiveVar.add(variable);
-				else
-					negativeVar.add(variable);
+				private void otherLine(String line) throws IOException {
+					try {
+						bw.write(replacePortaVariablesInString(line) + "\n");
+					} catch (UnknownVariableName e) {
+						throw new IOException(e);
+					}
+				}
+			});
+		} catch (InvalidIEQFileFormatException e) {
+			throw new IOException(e);
+		} catch (IOException e) {
+			if(e.getCause() instanceof UnknownVariableName)
+				throw (UnknownVariableName) e.getCause();
+
+			throw e;
+		}
+	}
 
-				result = new String();
+	/**
+	 * @return The number of an inequality as written by porta (e.g., "(  9)"); an empty string if the inequality is not numbered
+	 */
+	private static String numberPrefix(int number) {
+		return number == 0 ? "" : String.format("(%3d)", number);
+	}
 
-				boolean isSHNegative = s.substring(i).contains("-");
-				boolean isEquality = s.contains("==");
-				boolean isGT = s.contains(">=");
-				boolean isSHNull = s.contains(" 0");
+	/**
+	 * To ease the readibility of the constraints, change the side of the constraint terms which have a negative coefficient
+	 * (e.g., "(  9) -x2-x10+x11 <= 0" becomes "( 9) x11 <= x2 + x10" with the user names of the variables)
+	 * @param number Number of the constraint (0 if it is not numbered)
+	 * @param inequality The constraint
+	 * @return The converted constraint
+	 * @throws UnknownVariableName
+	 */
+	private String removeMinusesInConstraint(int number, Inequality inequality) throws UnknownVariableName {
 
-				int posVarFirstId = 0;
+		List<String> positiveVar = new ArrayList<>();
+		List<String> negativeVar = new ArrayList<>();
 
-				/* If the second-hand coefficient is negative, add it on the left part */
-				if(isSHNegative || isSHNull && positiveVar.size() == 0)
+		for(int i = 0; i < inequality.coefficients.length; i++) {
+			long c = inequality.coefficients[i];
 
-					if(isSHNull)
-						result = " 0";
-					else
-						/* +2 to remove the two characters associated to the sign ("<=" or "==") */
-						result = " " + s.substring(i+2).trim().replace("-", "");
+			if(c != 0) {
 
-				/* Otherwise, the sign of the first positive variable must not appear */
-				else {
-					posVarFirstId = 1;
+				/* +1 since the variables in porta are indexed starting from 1 */
+				Variable v = variables.get(i + 1);
 
-					if(positiveVar.size() > 0)
-						result += " " + positiveVar.get(0);
-				}
+				if(v == null)
+					throw new UnknownVariableName(Integer.toString(i + 1));
 
-				for(int id = posVarFirstId ; id < positiveVar.size() ; id++)
-					result += " + " + positiveVar.get(id);
+				String term = (Math.abs(c) == 1 ? "" : Long.toString(Math.abs(c))) + v.originalName;
 
-				if(isEquality)
-					result += " ==";
-				else if(isGT)
-					result += " >=";
+				if(c > 0)
+					positiveVar.add(term);
 				else
-					result += " <=";
-
-
-				int negativeVarFirstId = 0;
+					negativeVar.add(term);
+			}
+		}
 
-				if(!isSHNegative && !isSHNull || isSHNull && negativeVar.size() == 0)
-					result += " " + s.substring(i+2).trim();
+		long rhs = inequality.rhs;
+		List<String> lhsTerms = new ArrayList<>();
+		List<String> rhsTerms = new ArrayList<>();
 
-				/* Otherwise, the sign of the first negative variable must not appear */
-				else {
-					negativeVarFirstId = 1;
+		/* If the second-hand coefficient is negative, add it on the left part */
+		if(rhs < 0 || rhs == 0 && positiveVar.isEmpty())
+			lhsTerms.add(Long.toString(Math.abs(rhs)));
 
-					if(negativeVar.size() > 0)
-						result += " " + negativeVar.get(0);
-				}
+		lhsTerms.addAll(positiveVar);
 
+		if(rhs > 0 || rhs == 0 && negativeVar.isEmpty())
+			rhsTerms.add(Long.toString(rhs));
 
-				for(int id = negativeVarFirstId ; id < negativeVar.size() ; id++)
-					result += " + " + negativeVar.get(id); 
+		rhsTerms.addAll(negativeVar);
 
-				/* Add the inequality number if any */
-				int bracketIndex = s.indexOf(')');
+		/* A side without terms */
+		if(lhsTerms.isEmpty())
+			lhsTerms.add("0");
 
-				if(bracketIndex != -1)
-					result = s.substring(0, bracketIndex+1) + result;
-
-			}
-		}
+		if(rhsTerms.isEmpty())
+			rhsTerms.add("0");
 
+		String operator = inequality.sense == Inequality.Sense.EQUAL ? "=" : inequality.sense.symbol;
+		String prefix = numberPrefix(number).replaceAll(" +", " ");
 
-		return result;
+		return prefix + " " + String.join(" + ", lhsTerms) + " " + operator + " " + String.join(" + ", rhsTerms) + " ";
 	}
 
 
@@ -299,41 +337,38 @@ public abstract class AbstractPolytope {
 			length = s.length();
 		}
 
-		/* Position of the character 'x' which denotes a porta variable; -1 if we are not currently browsing a porta variable */
-		int currentXPosition = -1;
-
 		/* Add an empty space at the end to detect a potential variable at the end of the string */
 		s += " ";
-		String result = new String(s);
 
-		for(int i = 0 ; i < s.length() ; i++){
+		/* The names are replaced in a single pass so that a user name which looks like a porta name (e.g., "x12") is not replaced again */
+		StringBuilder result = new StringBuilder(s.length());
+		int i = 0;
 
-			/* If we are not currently browsing the characters of a porta variable */
-			if(currentXPosition == -1){
+		while(i < s.length()){
 
-				/* If we find the beginning of a porta variable */
-				if(s.charAt(i) == 'x')
-					currentXPosition = i;
-			}
-			/* If we reach the end of a porta variable name */
-			else if(!Character.isDigit(s.charAt(i))){
-				String sInitial = s.substring(currentXPosition, i);
+			/* If we find the beginning of a porta variable */
+			if(s.charAt(i) == 'x' && i + 1 < s.length() && Character.isDigit(s.charAt(i + 1))){
 
-				if(sInitial.length() > 1){
-					Variable v = variables.get(Integer.parseInt(sInitial.substring(1)));
+				int end = i + 1;
 
-					if(v == null)
-						throw new UnknownVariableName(sInitial.substring(1));
+				while(Character.isDigit(s.charAt(end)))
+					end++;
 
-					String sNew = v.originalName;
-					result = result.replaceAll(sInitial + " ", sNew + " ");
-				}
+				String sInitial = s.substring(i, end);
+				Variable v = variables.get(Integer.parseInt(sInitial.substring(1)));
 
-				currentXPosition = -1;
+				if(v == null)
+					throw new UnknownVariableName(sInitial.substring(1));
+
+				/* Only the names followed by a space are replaced */
+				result.append(s.charAt(end) == ' ' ? v.originalName : sInitial);
+				i = end;
 			}
+			else
+				result.append(s.charAt(i++));
 		}
 
-		return result;
+		return result.toString();
 	}
 	
 
@@ -348,86 +383,34 @@ public abstract class AbstractPolytope {
 
 		initializeVariables();
 
-		InputStream ips=new FileInputStream(inputPOIFile); 
-		InputStreamReader ipsr=new InputStreamReader(ips);
-		BufferedReader br=new BufferedReader(ipsr);
+		try(BufferedWriter bw = new BufferedWriter(new FileWriter(convertedPOIFile))){
 
-		FileWriter fw = new FileWriter(convertedPOIFile);
-		BufferedWriter bw = new BufferedWriter(fw);
+			PortaParser.parsePOI(inputPOIFile, variables.size(), new PortaParser.Handler() {
 
-		String line;
+				/* Number of the current object in its section */
+				int objectNb = 0;
+				PortaParser.Section section = PortaParser.Section.NONE;
 
+				NumberFormat nf = new DecimalFormat("#0.00");
 
-		String convSection = "CONV_SECTION";
-		String coneSection = "CONE_SECTION";
-		String endSection = "END";
-		boolean isInConvSection = false;
-		boolean isInConeSection = false;
-		
-		/* Type of the object read (vector or point) */
-		String objectType ="";
-		int objectNb = 0;
-		
-		while ((line=br.readLine())!=null){
+				@Override
+				public void point(PortaParser.Section pointSection, int number, POIReader.Point point) throws IOException {
 
-			line = line.trim();
-			
-			if(line.contains(convSection)) {
-				isInConvSection = true;
-				isInConeSection = false;
-				objectType = "Point";
-				objectNb = 1;
-			}
-			if(line.contains(coneSection)) {
-				isInConeSection = true;
-				isInConvSection = false;
-				objectType = "Vector";
-				objectNb = 1;
-			}
-			else if(line.contains(endSection)) {
-				isInConvSection = false;
-				isInConeSection = false;
-			}
-			else if(isInConvSection || isInConeSection) {
+					/* Only the points and the vectors are converted */
+					if(pointSection != PortaParser.Section.CONV && pointSection != PortaParser.Section.CONE)
+						return;
 
-				String []sTemp = line.split("\\)");
-
-				String point = "";
-
-				/* If the line contains ')' (e.g., if it starts by "( 1)") */
-				if(sTemp.length > 1)
-					point = sTemp[1];
-				else
-					point = sTemp[0];
-				
-				point = point.trim().replace("- ", "-");
-				int pSize;
-				
-				do {
-					pSize = point.length();
-					point = point.replace("  ", " ");
-					
-				}while(pSize != point.length());
-				
-				sTemp = point.split(" ");
-
-				/* If the line corresponds to a point */
-				if(sTemp.length == variables.size()){
+					if(pointSection != section) {
+						section = pointSection;
+						objectNb = 1;
+					}
 
 					/* Map which contains for each value in the solution, the name of the variables with this value */
 					HashMap<Double, List<String>> variablesByValue = new HashMap<>();
 
 					for(int i = 0 ; i < variables.size() ; i++){
-						
-						Double value;
-						
-						if(sTemp[i].contains("/")) {
-							String[] sTemp2 = sTemp[i].split("/");
-							value = Double.parseDouble(sTemp2[0]) / Double.parseDouble(sTemp2[1]);
-						}
-						else
-							value = Double.parseDouble(sTemp[i]);
 
+						Double value = point.denominator == 1 ? (double) point.numerators[i] : point.numerators[i] / (double) point.denominator;
 						List<String> list = variablesByValue.get(value);
 
 						if(list == null){
@@ -437,10 +420,9 @@ public abstract class AbstractPolytope {
 
 						/* +1 since the variables in porta are indexed starting from 1 */
 						list.add(variables.get(i+1).originalName);
-
 					}
 
-					bw.write(objectType  +" n°" + objectNb + "\n");
+					bw.write((section == PortaParser.Section.CONV ? "Point" : "Vector") + " n°" + objectNb + "\n");
 					objectNb++;
 
 					for(Entry<Double, List<String>> entry: variablesByValue.entrySet()){
@@ -451,16 +433,11 @@ public abstract class AbstractPolytope {
 								bw.write(entry.getValue() + " = " + nf.format(entry.getKey()) + "\n");
 					}
 					bw.write("\n");
-
 				}
-				bw.flush();
-
-			}
+			});
+		} catch (InvalidPOIFileFormatException e) {
+			throw new IOException(e);
 		}
-
-		bw.close();
-		br.close();
-
 	}
 
 	/**
@@ -525,11 +502,30 @@ public abstract class AbstractPolytope {
 	/**
 	 * Compute the dimension and the hyperplanes which contains the convex hull of the integer points included in the poi file at <inputFile>.
 	 * @param inputFile Path to the .poi file which contains the formulation
-	 * @return The porta output which includes the dimension and the including hyperplanes
+	 * @return The porta output which includes the dimension and the including hyperplanes; null if an error occurred
 	 */
 	protected static String dim(String inputFile){
+		return dim(inputFile, null);
+	}
 
-		String result = Command.execute("dim " + inputFile);
+	/**
+	 * Compute the dimension and the hyperplanes which contains the convex hull of the integer points included in the poi file at <inputFile>.
+	 * @param inputFile Path to the .poi file which contains the formulation
+	 * @param cache Cache of the porta results; null to always run dim
+	 * @return The porta output which includes the dimension and the including hyperplanes; null if an error occurred
+	 */
+	protected static String dim(String inputFile, PortaCache cache){
+		return dimensionOutput(porta("dim", inputFile, cache));
+	}
+
+	/**
+	 * @param result The output of dim; null if dim failed
+	 * @return The part of the output which includes the dimension and the including hyperplanes; null if dim failed
+	 */
+	private static String dimensionOutput(String result){
+
+		if(result == null)
+			return null;
 
 		String[] sResult = result.split("DIMENSION OF THE POLYHEDRON");
 
@@ -544,7 +540,253 @@ public abstract class AbstractPolytope {
 	 * @param inputFile Path to the .poi file which contains the formulation
 	 */
 	public static void traf(String inputFile){
-		Command.execute("traf " + inputFile);
+		traf(inputFile, null);
+	}
+
+	/**
+	 * Compute the facets of the convex hull of the integer points included in the poi file at path <inputFile>.
+	 * @param inputFile Path to the .poi file which contains the formulation
+	 * @param cache Cache of the porta results; null to always run traf
+	 */
+	public static void traf(String inputFile, PortaCache cache){
+		porta("traf", inputFile, cache);
+	}
+
+	/**
+	 * Run a porta command in the folder of its input file, so that the log file written by porta in its working directory is not shared between instances
+	 * @param command The porta command (traf, dim, vint, ...)
+	 * @param inputFile Path of the input file
+	 * @param cache Cache of the porta results; null to always run the command
+	 * @return The output of the command; null if an error occurred
+	 */
+	protected static String porta(String command, String inputFile, PortaCache cache){
+
+		File input = new File(inputFile).getAbsoluteFile();
+
+		if(cache != null)
+			return cache.execute(command, input, () -> runProcess(command, input));
+
+		return runProcess(command, input);
+	}
+
+	/**
+	 * Start a porta process in the folder of its input file
+	 * @return The output of the command; null if an error occurred (including a non-zero exit code), so that the result is not cached
+	 */
+	private static String runProcess(String command, File input){
+
+		try {
+			ProcessRunner.Result result = new ProcessRunner(command, input.getPath()).setDirectory(input.getParentFile()).run();
+
+			if(!result.isSuccess()) {
+				System.err.println("The command \"" + command + " " + input.getPath() + "\" failed (exit code " + result.getExitCode() + ")");
+				return null;
+			}
+
+			return result.getOutput();
+		} catch (IOException e) {
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+
+	/**
+	 * Run the porta commands of this instance through a scheduler (by default, they are run directly)
+	 * @param scheduler The scheduler; null to run the commands directly
+	 * @param priority Priority of the commands of this instance in the scheduler queues
+	 * @param budget Resources allowed to each command
+	 */
+	public void setPortaScheduler(PortaScheduler scheduler, int priority, PortaScheduler.Budget budget) {
+		this.portaScheduler = scheduler;
+		this.portaPriority = priority;
+		this.portaBudget = budget;
+	}
+
+	public PortaScheduler getPortaScheduler() {
+		return portaScheduler;
+	}
+
+	/**
+	 * Run a porta command on a file of this instance (through its scheduler if any)
+	 * @param command The porta command (traf, dim, vint, ...)
+	 * @param inputFile Path of the input file
+	 * @return The output of the command; null if an error occurred
+	 */
+	protected String runPorta(String command, String inputFile){
+
+		if(isInternalTraf && "traf".equals(command) && inputFile.endsWith(".poi"))
+			return internalTraf(inputFile);
+
+		File input = new File(inputFile).getAbsoluteFile();
+		Supplier<String> runner;
+
+		if(portaScheduler == null)
+			runner = () -> runProcess(command, input);
+		else
+			runner = () -> portaScheduler.execute(Arrays.asList(command, input.getPath()), input.getParentFile(), PortaScheduler.laneOf(command), portaPriority, portaBudget);
+
+		if(portaCache == null)
+			return runner.get();
+
+		return portaCache.execute(command, input, runner);
+	}
+
+	/**
+	 * Reuse the results of the porta commands of this instance run previously on the same input (by default, the commands are always run)
+	 * @param cache The cache; null to always run the commands
+	 */
+	public void setPortaCache(PortaCache cache) {
+		this.portaCache = cache;
+	}
+
+	public PortaCache getPortaCache() {
+		return portaCache;
+	}
+
+	/**
+	 * Choose how the facets of the convex hull of integer points are computed
+	 * @param isInternalTraf True to compute them in this JVM with an exact double description (see {@code porta.Traf}); false to run traf
+	 */
+	public void setInternalTraf(boolean isInternalTraf) {
+		this.isInternalTraf = isInternalTraf;
+	}
+
+	public boolean isInternalTraf() {
+		return isInternalTraf;
+	}
+
+	/**
+	 * Choose how the dimension of the convex hull of integer points is computed
+	 * @param isInternalDim True to compute it in this JVM with exact integer arithmetic (see {@code porta.AffineHull}); false to run dim
+	 */
+	public void setInternalDim(boolean isInternalDim) {
+		this.isInternalDim = isInternalDim;
+	}
+
+	public boolean isInternalDim() {
+		return isInternalDim;
+	}
+
+	/**
+	 * Compute the facets of the points of a .poi file in this JVM and write them in the file {@code poiFile}.ieq
+	 * @param poiFile Path of the .poi file
+	 * @return An empty output; null if an error occurred
+	 */
+	private static String internalTraf(String poiFile){
+
+		try {
+			Traf.traf(poiFile);
+			return "";
+		} catch (IOException | InvalidPOIFileFormatException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Record the completed stages of the computation of the facets (generation of the points, traf) with the checksums of their files in the temporary folder (see {@code StageCheckpoints}).
+	 * A computation run again in the same temporary folder (see {@code setTmpFolder}) then starts at the first stage whose outputs are missing or stale.
+	 * The temporary folder must only be used by this polytope.
+	 * @param isResumable True to record the stages
+	 */
+	public void setResumable(boolean isResumable) {
+		this.isResumable = isResumable;
+
+		/* The stages of a resumable computation are kept */
+		if(isTmpFolderOwned && isResumable)
+			foldersToDelete.remove(sTmpFolder);
+		else if(isTmpFolderOwned)
+			foldersToDelete.add(sTmpFolder);
+	}
+
+	public boolean isResumable() {
+		return isResumable;
+	}
+
+	/**
+	 * Test if a stage of the computation has been completed by a previous run (always false if the computation is not resumable)
+	 * @param stage Name of the stage
+	 * @param parameters What the result of the stage depends on besides its input files
+	 * @param inputs Files read by the stage
+	 * @param outputs Files written by the stage
+	 * @return True if the stage can be skipped; false if it must be run (its previous outputs are then removed, so that they are not recorded if the stage fails)
+	 */
+	protected boolean isStageComplete(String stage, String parameters, List<File> inputs, List<File> outputs) {
+
+		if(!isResumable)
+			return false;
+
+		if(!new StageCheckpoints(stageFolder()).isComplete(stage, parameters, inputs, outputs)) {
+			for(File output: outputs)
+				output.delete();
+
+			return false;
+		}
+
+		System.out.println("=== Skip " + stage + " (completed by a previous run)");
+		return true;
+	}
+
+	/**
+	 * Record that a stage of the computation has been completed (if the computation is resumable)
+	 * @param stage Name of the stage
+	 * @param parameters What the result of the stage depends on besides its input files
+	 * @param inputs Files read by the stage
+	 * @param outputs Files written by the stage
+	 */
+	protected void completeStage(String stage, String parameters, List<File> inputs, List<File> outputs) {
+
+		if(isResumable)
+			new StageCheckpoints(stageFolder()).complete(stage, parameters, inputs, outputs);
+	}
+
+	/**
+	 * @return Folder of the markers of the completed stages
+	 */
+	private File stageFolder() {
+		return new File(sTmpFolder, "stages");
+	}
+
+	/**
+	 * Remove the temporary folder of this instance and its content
+	 * @throws IOException
+	 */
+	public void deleteTmpFolder() throws IOException {
+		deleteFolder(sTmpFolder);
+	}
+
+	/**
+	 * Remove the temporary folder if it has been created for this instance and the computation is not resumable
+	 */
+	@Override
+	public void close() {
+
+		if(!isTmpFolderOwned || isResumable)
+			return;
+
+		try {
+			deleteFolder(sTmpFolder);
+			foldersToDelete.remove(sTmpFolder);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Remove a folder and its content
+	 * @param folder Path of the folder
+	 * @throws IOException
+	 */
+	private static void deleteFolder(String folder) throws IOException {
+
+		Path path = Paths.get(folder);
+
+		if(Files.exists(path))
+			try(Stream<Path> paths = Files.walk(path)){
+				paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+			}
 	}
 	
 	/**
@@ -560,9 +802,18 @@ public abstract class AbstractPolytope {
 		generateIntegerPoints();
 	
 		String outputTrafFile = sTmpPOIFile.replace(".poi", ".poi.ieq");
+		List<File> points = Arrays.asList(new File(sTmpPOIFile));
+		List<File> facets = Arrays.asList(new File(outputTrafFile));
 
-		System.out.println("=== Get the facets (input: " + sTmpPOIFile + ", output: " + outputTrafFile + ")");
-		traf(sTmpPOIFile);
+		if(!isStageComplete("traf", "", points, facets)) {
+			System.out.println("=== Get the facets (input: " + sTmpPOIFile + ", output: " + outputTrafFile + ")");
+
+			/* The output file of a failed run is neither converted nor recorded */
+			if(runPorta("traf", sTmpPOIFile) == null)
+				throw new IOException("The command traf failed on " + sTmpPOIFile);
+
+			completeStage("traf", "", points, facets);
+		}
 
 		System.out.println("=== Convert facets (input: " + outputTrafFile + ", output: " + outputFile + ")");
 		convertIEQFile(outputTrafFile, outputFile, true);
@@ -618,12 +869,28 @@ public abstract class AbstractPolytope {
 	public String getIPDimension() throws UnknownVariableName, InvalidIEQFileFormatException{
 
 		String output = null;
-
-		generateIntegerPoints();
+		AffineHull hull = null;
+
+		if(isInternalDim)
+			try {
+				hull = getIPAffineHull();
+			} catch (IOException | InvalidPOIFileFormatException e) {
+				e.printStackTrace();
+				return null;
+			}
+		else
+			generateIntegerPoints();
 		
 		System.out.println("=== Get the dimension");
 		System.out.println("INITIAL DIMENSION : " + variables.size());
-		output = dim(this.sTmpPOIFile);
+
+		if(hull != null)
+			output = hull.toString();
+		else
+			output = dimensionOutput(runPorta("dim", this.sTmpPOIFile));
+
+		if(output == null)
+			return null;
 
 		output = replacePortaVariablesInString(output);
 
@@ -632,6 +899,21 @@ public abstract class AbstractPolytope {
 	}
 	
 
+	/**
+	 * Compute in this JVM the affine hull of the integer points of the polytope
+	 * @return The dimension and the equations (over the porta variables) of the affine hull
+	 * @throws UnknownVariableName
+	 * @throws InvalidIEQFileFormatException
+	 * @throws IOException
+	 * @throws InvalidPOIFileFormatException
+	 */
+	public AffineHull getIPAffineHull() throws UnknownVariableName, InvalidIEQFileFormatException, IOException, InvalidPOIFileFormatException {
+
+		generateIntegerPoints();
+
+		return AffineHull.of(new POIReader(sTmpPOIFile));
+	}
+
 	public String getIntegerPoints() throws UnknownVariableName, InvalidIEQFileFormatException, IOException {
 
 		String results = "";
@@ -676,10 +958,15 @@ public abstract class AbstractPolytope {
 			formulationFile = generateIPFormulation();
 		else
 			formulationFile = generateFormulation();
+
+		if(formulationFile == null)
+			throw new IOException("The formulation could not be generated");
 			
 		String lastTrafOutputFile = formulationFile + ".poi";
 		System.out.println("=== Get the extreme points (input: " + formulationFile + ", output: " + lastTrafOutputFile + ")");
-		traf(formulationFile);
+
+		if(runPorta("traf", formulationFile) == null)
+			throw new IOException("The command traf failed on " + formulationFile);
 
 		System.out.println("=== Convert extreme points (input: " + lastTrafOutputFile + ", output: " + outputFile + ")");
 		convertPOIFile(lastTrafOutputFile, outputFile);
@@ -727,7 +1014,7 @@ public abstract class AbstractPolytope {
 	
 	/**
 	 * Generate I(P) formulation. The result must be written in sTmpPOIFile
-	 * @return Output file in which the formulation has been generated
+	 * @return Output file in which the formulation has been generated; null if traf failed
 	 * @throws UnknownVariableName
 	 * @throws InvalidIEQFileFormatException
 	 */
@@ -737,7 +1024,9 @@ public abstract class AbstractPolytope {
 
 		String output = sTmpPOIFile + ".ieq";
 		System.out.println("=== Generate the integer polytope (output: " + output + ")");
-		traf(sTmpPOIFile);
+
+		if(runPorta("traf", sTmpPOIFile) == null)
+			return null;
 		
 		return output;
 		
@@ -0,0 +1,142 @@
+package formulation;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import exception.InvalidIEQFileFormatException;
+
+/**
+ * Represent a linear inequality (or equation) over the porta variables:
+ * coefficients[0] x1 + ... + coefficients[d-1] xd (sense) rhs
+ *
+ */
+public class Inequality {
+
+	/** Possible operators of an inequality */
+	public enum Sense{
+		LESS_OR_EQUAL("<="), GREATER_OR_EQUAL(">="), EQUAL("==");
+
+		public final String symbol;
+
+		Sense(String symbol){
+			this.symbol = symbol;
+		}
+	}
+
+	/** Coefficient of each variable ordered by porta index (the coefficient of x1 is at index 0) */
+	public final long[] coefficients;
+
+	public final Sense sense;
+
+	/** Right-hand side */
+	public final long rhs;
+
+	public Inequality(long[] coefficients, Sense sense, long rhs) {
+		this.coefficients = coefficients;
+		this.sense = sense;
+		this.rhs = rhs;
+	}
+
+	/**
+	 * Parse an inequality written in porta format (e.g., "(  9)     -x2  -x10+x11 <= 0" or "2 x1 + x2 == 1")
+	 * @param line The line
+	 * @param dimension Number of variables
+	 * @return The inequality
+	 * @throws InvalidIEQFileFormatException
+	 */
+	public static Inequality parse(String line, int dimension) throws InvalidIEQFileFormatException {
+		return PortaParser.parseInequality(line, dimension);
+	}
+
+	/**
+	 * @return The inequality in porta format with porta variable names (e.g., "-x2-x10+x11 <= 0")
+	 */
+	public String toPortaString() {
+
+		StringBuilder sb = new StringBuilder();
+
+		for(int i = 0; i < coefficients.length; i++) {
+			long c = coefficients[i];
+
+			if(c != 0) {
+				sb.append(c > 0 ? '+' : '-');
+
+				if(Math.abs(c) != 1)
+					sb.append(Math.abs(c));
+
+				sb.append('x').append(i + 1);
+			}
+		}
+
+		if(sb.length() == 0)
+			sb.append('0');
+
+		return sb.append(' ').append(sense.symbol).append(' ').append(rhs).toString();
+	}
+
+	/**
+	 * Read the inequalities of the INEQUALITIES_SECTION of a porta .ieq file
+	 * @param ieqFile Path of the file
+	 * @param dimension Number of variables
+	 * @return The inequalities in the order of the file
+	 * @throws IOException
+	 * @throws InvalidIEQFileFormatException
+	 */
+	public static List<Inequality> readInequalities(String ieqFile, int dimension) throws IOException, InvalidIEQFileFormatException {
+
+		List<Inequality> inequalities = new ArrayList<>();
+
+		PortaParser.parseIEQ(ieqFile, dimension, new PortaParser.Handler() {
+
+			@Override
+			public void inequality(int number, Inequality inequality) {
+				inequalities.add(inequality);
+			}
+		});
+
+		return inequalities;
+	}
+
+	/**
+	 * Write inequalities in a porta .ieq file (numbered as in the files created by traf)
+	 * @param ieqFile Path of the file
+	 * @param dimension Number of variables
+	 * @param inequalities The inequalities
+	 * @throws IOException
+	 */
+	public static void writeInequalities(String ieqFile, int dimension, List<Inequality> inequalities) throws IOException {
+
+		try(BufferedWriter bw = new BufferedWriter(new FileWriter(ieqFile))){
+			bw.write("DIM = " + dimension + "\n\nINEQUALITIES_SECTION\n");
+
+			for(int i = 0; i < inequalities.size(); i++)
+				bw.write(String.format("(%3d) ", i + 1) + inequalities.get(i).toPortaString() + "\n");
+
+			bw.write("\nEND\n");
+		}
+	}
+
+	@Override
+	public boolean equals(Object o) {
+
+		if(!(o instanceof Inequality))
+			return false;
+
+		Inequality other = (Inequality) o;
+		return sense == other.sense && rhs == other.rhs && Arrays.equals(coefficients, other.coefficients);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * Arrays.hashCode(coefficients) + sense.hashCode()) + Long.hashCode(rhs);
+	}
+
+	@Override
+	public String toString() {
+		return toPortaString();
+	}
+}
@@ -0,0 +1,120 @@
+package formulation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Partition a list of inequalities into orbits under a group of permutations of the variables.
+ *
+ * A permutation p maps the inequality sum_i a_i x_i (sense) b on sum_i a_i x_p(i) (sense) b.
+ * The orbit of an inequality is computed by applying the generators of the group until no new inequality is obtained.
+ * The representative of an orbit is its first inequality in the list.
+ */
+public class InequalityOrbits {
+
+	/** Index of the representative of the orbit of each inequality */
+	int[] representative;
+
+	/** Size of the orbit of each representative */
+	HashMap<Integer, Integer> orbitSizes = new HashMap<>();
+
+	/** Representatives in the order of the list */
+	List<Integer> representatives = new ArrayList<>();
+
+	/**
+	 * @param inequalities The inequalities (typically the facets of a polytope, which are mapped on each other by its symmetries)
+	 * @param generators Generators of the group; generator p maps variable i on variable p[i] (0-indexed)
+	 */
+	public InequalityOrbits(List<Inequality> inequalities, List<int[]> generators) {
+
+		HashMap<Inequality, Integer> index = new HashMap<>();
+
+		for(int i = 0; i < inequalities.size(); i++)
+			index.putIfAbsent(inequalities.get(i), i);
+
+		representative = new int[inequalities.size()];
+
+		for(int i = 0; i < inequalities.size(); i++)
+			representative[i] = -1;
+
+		for(int i = 0; i < inequalities.size(); i++) {
+
+			if(representative[i] != -1)
+				continue;
+
+			/* Breadth-first search of the orbit of the inequality */
+			HashSet<Inequality> orbit = new HashSet<>();
+			ArrayDeque<Inequality> queue = new ArrayDeque<>();
+			orbit.add(inequalities.get(i));
+			queue.add(inequalities.get(i));
+
+			while(!queue.isEmpty()) {
+				Inequality current = queue.poll();
+
+				for(int[] p: generators) {
+					Inequality image = apply(current, p);
+
+					if(orbit.add(image))
+						queue.add(image);
+				}
+			}
+
+			/* The inequalities of the list in this orbit (including duplicates) are represented by inequality i */
+			for(Inequality inequality: orbit) {
+				Integer id = index.get(inequality);
+
+				if(id != null && representative[id] == -1)
+					representative[id] = i;
+			}
+
+			for(int j = i; j < inequalities.size(); j++)
+				if(representative[j] == -1 && inequalities.get(j).equals(inequalities.get(i)))
+					representative[j] = i;
+
+			representatives.add(i);
+			orbitSizes.put(i, orbit.size());
+		}
+	}
+
+	/**
+	 * Apply a permutation of the variables to an inequality
+	 * @param inequality The inequality
+	 * @param p The permutation (variable i is mapped on variable p[i])
+	 * @return The image of the inequality
+	 */
+	public static Inequality apply(Inequality inequality, int[] p) {
+
+		long[] coefficients = new long[inequality.coefficients.length];
+
+		for(int i = 0; i < coefficients.length; i++)
+			coefficients[p[i]] = inequality.coefficients[i];
+
+		return new Inequality(coefficients, inequality.sense, inequality.rhs);
+	}
+
+	/**
+	 * @return The index of the representative of each orbit, in increasing order
+	 */
+	public List<Integer> getRepresentatives() {
+		return representatives;
+	}
+
+	/**
+	 * @param i Index of an inequality
+	 * @return The index of the representative of its orbit
+	 */
+	public int getRepresentative(int i) {
+		return representative[i];
+	}
+
+	/**
+	 * @param representative Index of the representative of an orbit
+	 * @return The number of inequalities in the orbit
+	 */
+	public int getOrbitSize(int representative) {
+		return orbitSizes.get(representative);
+	}
+}
@@ -1,40 +1,206 @@
 package formulation;
 
+import java.util.Arrays;
+
 import exception.UnknownVariableName;
 
 /**
  * Represent an integer point in a polytope
  * All the variables are set to 0 by default.
+ *
+ * While all the values are 0 or 1 (e.g., the bond and knapsack points), the point is stored as a bit set (the bit i of {@code bits} is the value of the variable of porta index i+1),
+ * which uses 32 times less memory than an int by variable. The point is converted into an array of int when another value is set.
  * @author zach
  *
  */
 public class IntegerPoint{
-	
+
+	/** Value of each variable ordered by porta index; null while the point is stored in {@code bits} */
 	int[] coordinates;
-	
+
+	/** Values of the variables as bits (64 variables by long); null if a value is neither 0 nor 1 */
+	long[] bits;
+
+	/** Number of variables */
+	int dimension;
+
 	AbstractPolytope polytope;
-	
+
 	public IntegerPoint(AbstractPolytope p) {
 		this.polytope = p;
-		coordinates = new int[p.variables.size()];
+		this.dimension = p.variables.size();
+		bits = new long[wordCount(dimension)];
 	}
-	
+
+	/**
+	 * Create a 0/1 point from its bits
+	 * @param p The polytope
+	 * @param bits The variable of porta index i+1 is set to 1 iff the bit i is set (the bits beyond the number of variables are ignored)
+	 */
+	public IntegerPoint(AbstractPolytope p, long[] bits) {
+		this(p);
+
+		System.arraycopy(bits, 0, this.bits, 0, Math.min(bits.length, this.bits.length));
+
+		/* Clear the bits beyond the number of variables */
+		if(dimension % 64 != 0 && this.bits.length > 0)
+			this.bits[this.bits.length - 1] &= (1L << (dimension % 64)) - 1;
+	}
+
 	public void setVariable(String varName, int value) throws UnknownVariableName {
-		int id = polytope.variablesBis.get(varName);
-				
-		if(id != -1) 
-			this.coordinates[id - 1] =  value;
+		Integer id = polytope.variablesBis.get(varName);
+
+		if(id != null && id != -1)
+			setVariable(id, value);
 		else
 			throw new UnknownVariableName(varName);
 	}
-	
+
+	/**
+	 * Set the value of a variable from its index in porta
+	 * @param portaId Index of the variable in porta (between 1 and the number of variables)
+	 * @param value
+	 */
+	public void setVariable(int portaId, int value) {
+
+		if(portaId < 1 || portaId > dimension)
+			throw new IndexOutOfBoundsException("Variable x" + portaId + " out of range");
+
+		if(bits != null) {
+			if(value == 1)
+				bits[(portaId - 1) >>> 6] |= 1L << (portaId - 1);
+			else if(value == 0)
+				bits[(portaId - 1) >>> 6] &= ~(1L << (portaId - 1));
+			else {
+				coordinates = getCoordinates();
+				bits = null;
+			}
+		}
+
+		if(coordinates != null)
+			coordinates[portaId - 1] = value;
+	}
+
+	/**
+	 * @param portaId Index of the variable in porta (between 1 and the number of variables)
+	 * @return The value of the variable
+	 */
+	public int getValue(int portaId) {
+
+		if(bits != null)
+			return (int) (bits[(portaId - 1) >>> 6] >>> (portaId - 1)) & 1;
+
+		return coordinates[portaId - 1];
+	}
+
+	/**
+	 * @return The value of each variable ordered by porta index (a new array if the point is stored as bits)
+	 */
+	public int[] getCoordinates() {
+
+		if(bits == null)
+			return coordinates;
+
+		int[] result = new int[dimension];
+
+		for(int w = 0; w < bits.length; w++) {
+			long word = bits[w];
+
+			while(word != 0) {
+				result[w * 64 + Long.numberOfTrailingZeros(word)] = 1;
+				word &= word - 1;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return True if the point is stored as bits (all its values are 0 or 1)
+	 */
+	public boolean isBinary() {
+		return bits != null;
+	}
+
+	/**
+	 * @return The bits of the point (see {@code IntegerPoint(AbstractPolytope, long[])}); null if it is not stored as bits
+	 */
+	long[] getBits() {
+		return bits;
+	}
+
+	/**
+	 * @return The number of variables
+	 */
+	public int getDimension() {
+		return dimension;
+	}
+
+	/**
+	 * @return The bits of the point even if it is stored as an array of int; null if one of its values is neither 0 nor 1
+	 */
+	long[] packedBits() {
+
+		if(bits != null)
+			return bits;
+
+		long[] result = new long[wordCount(dimension)];
+
+		for(int i = 0; i < dimension; i++)
+			if(coordinates[i] == 1)
+				result[i >>> 6] |= 1L << i;
+			else if(coordinates[i] != 0)
+				return null;
+
+		return result;
+	}
+
+	static int wordCount(int dimension) {
+		return (dimension + 63) >>> 6;
+	}
+
+	/**
+	 * Two points are equal if their variables have the same values (whatever the way they are stored)
+	 */
+	@Override
+	public boolean equals(Object o) {
+
+		if(this == o)
+			return true;
+
+		if(!(o instanceof IntegerPoint))
+			return false;
+
+		IntegerPoint other = (IntegerPoint) o;
+
+		if(dimension != other.dimension)
+			return false;
+
+		if(bits != null && other.bits != null)
+			return Arrays.equals(bits, other.bits);
+
+		if(bits == null && other.bits == null)
+			return Arrays.equals(coordinates, other.coordinates);
+
+		return Arrays.equals(packedBits(), other.packedBits());
+	}
+
+	@Override
+	public int hashCode() {
+
+		long[] packed = packedBits();
+
+		return packed != null ? Arrays.hashCode(packed) : Arrays.hashCode(coordinates);
+	}
+
 	@Override
 	public String toString() {
-		String result = "";
-		
-		for(int i: coordinates)
-			result += i + " ";
-		
-		return result;
+
+		StringBuilder sb = new StringBuilder(2 * dimension);
+
+		for(int i = 1; i <= dimension; i++)
+			sb.append(getValue(i)).append(' ');
+
+		return sb.toString();
 	}
 }
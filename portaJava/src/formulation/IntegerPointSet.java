@@ -0,0 +1,446 @@
+package formulation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Set of the integer points already created, used to drop the duplicated points before they are given to porta.
+ *
+ * The 0/1 points are stored by their bits (see {@code IntegerPoint}) in an open-addressing hash table of long (no object by point).
+ * When the table would exceed its memory budget, its content is written sorted in a file of the spill folder and the next points are no longer checked on insertion:
+ * they are sorted by blocks which fit in the budget and written in other files (external sort).
+ * These points are only given by {@code flush}, which merges the files and drops the duplicates (including the points already given by {@code add}).
+ *
+ * The memory used by a set is thus bounded by its budget: the table grows up to the budget and the buffer of the external sort is allocated with the whole budget when the table is spilled.
+ * Each set has its own budget, so that the budgets of the sets used at the same time add up.
+ *
+ * The points whose values are not all 0 or 1 (which are not created by the polytopes of this project) are kept in a HashSet, which is not bounded by the budget.
+ *
+ * Example:
+ * IntegerPointSet set = new IntegerPointSet(polytope, IntegerPointSet.DEFAULT_MEMORY_BYTES, new File(".tmp"));
+ * for(IntegerPoint p: points)
+ *     if(set.add(p)) consumer.accept(p);
+ * set.flush(consumer);
+ * set.close();
+ */
+public class IntegerPointSet implements Closeable {
+
+	/** Default maximal number of bytes used by the points in memory (about 500000 points of 100 variables in the table) */
+	public static final long DEFAULT_MEMORY_BYTES = 32L << 20;
+
+	static final int MIN_CAPACITY = 16;
+
+	AbstractPolytope polytope;
+
+	/** Number of long of the bits of a point */
+	int width;
+
+	long memoryBytes;
+
+	/** Folder of the files of the external sort */
+	File spillFolder;
+
+	/** Bits of the points: the point of the slot i is in keys[i * width, (i+1) * width[ */
+	long[] keys;
+
+	/** Hash of the point of each slot; 0 if the slot is empty */
+	int[] hashes;
+
+	/** Number of points in the table */
+	int size = 0;
+
+	/** Points which are not 0/1 points */
+	HashSet<IntegerPoint> otherPoints = new HashSet<>();
+
+	/** Points received after the spill of the table (null before): the point i is in buffer[i * width, (i+1) * width[ */
+	long[] buffer;
+
+	/** Number of points in {@code buffer} */
+	int bufferSize;
+
+	/** File of the points of the table (already given by {@code add}) */
+	File forwardedRun;
+
+	/** Files of the points of {@code buffer}, each sorted */
+	List<File> runs = new ArrayList<>();
+
+	long duplicateCount = 0;
+
+	/**
+	 * @param polytope The polytope of the points
+	 * @param memoryBytes Maximal number of bytes used by the points in memory
+	 * @param spillFolder Folder of the files used when the points do not fit in the memory budget (created if necessary)
+	 */
+	public IntegerPointSet(AbstractPolytope polytope, long memoryBytes, File spillFolder) {
+
+		this.polytope = polytope;
+		this.memoryBytes = memoryBytes;
+		this.spillFolder = spillFolder;
+
+		width = Math.max(1, IntegerPoint.wordCount(polytope.variables.size()));
+		keys = new long[MIN_CAPACITY * width];
+		hashes = new int[MIN_CAPACITY];
+	}
+
+	/**
+	 * Add a point
+	 * @param point The point
+	 * @return True if the point must be used now: it is new and the points have not been spilled;
+	 * false if it is a duplicate or if it will be given by {@code flush}
+	 * @throws IOException If a file of the external sort cannot be written
+	 */
+	public boolean add(IntegerPoint point) throws IOException {
+
+		long[] bits = point.packedBits();
+
+		if(bits == null) {
+			if(otherPoints.add(point))
+				return true;
+
+			duplicateCount++;
+			return false;
+		}
+
+		/* A point without variables */
+		if(bits.length != width)
+			bits = Arrays.copyOf(bits, width);
+
+		if(buffer != null) {
+			addInBuffer(bits);
+			return false;
+		}
+
+		int hash = hash(bits, 0);
+		int mask = hashes.length - 1;
+		int slot = (hash >>> 1) & mask;
+
+		while(hashes[slot] != 0) {
+			if(hashes[slot] == hash && equals(keys, slot * width, bits, 0)) {
+				duplicateCount++;
+				return false;
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		/* Keep the load factor below 1/2 */
+		if(2 * (size + 1) > hashes.length) {
+
+			if(2L * hashes.length * (8L * width + 4) > memoryBytes) {
+				spillTable();
+				addInBuffer(bits);
+				return false;
+			}
+
+			grow();
+			return add(point);
+		}
+
+		System.arraycopy(bits, 0, keys, slot * width, width);
+		hashes[slot] = hash;
+		size++;
+
+		return true;
+	}
+
+	/**
+	 * Give the new points which have not been given by {@code add} (only if the points did not fit in the memory budget)
+	 * @param consumer Receives each point
+	 * @throws IOException If a file of the external sort cannot be read
+	 */
+	public void flush(Consumer<IntegerPoint> consumer) throws IOException {
+
+		if(buffer == null)
+			return;
+
+		spillBuffer();
+
+		PriorityQueue<RunReader> queue = new PriorityQueue<>((r1, r2) -> compare(r1.key, 0, r2.key, 0));
+		List<RunReader> readers = new ArrayList<>();
+
+		try {
+			readers.add(new RunReader(forwardedRun, true));
+
+			for(File run: runs)
+				readers.add(new RunReader(run, false));
+
+			for(RunReader reader: readers)
+				if(reader.next())
+					queue.add(reader);
+
+			/* The runs are merged: the equal points are consecutive */
+			while(!queue.isEmpty()) {
+				RunReader reader = queue.poll();
+				long[] key = reader.key;
+				boolean isForwarded = reader.isForwarded;
+
+				if(reader.next())
+					queue.add(reader);
+
+				while(!queue.isEmpty() && compare(queue.peek().key, 0, key, 0) == 0) {
+					RunReader other = queue.poll();
+					isForwarded |= other.isForwarded;
+					duplicateCount++;
+
+					if(other.next())
+						queue.add(other);
+				}
+
+				if(!isForwarded)
+					consumer.accept(new IntegerPoint(polytope, key));
+			}
+		}
+		finally {
+			for(RunReader reader: readers)
+				reader.in.close();
+
+			deleteRuns();
+			buffer = null;
+		}
+	}
+
+	/**
+	 * @return Number of duplicated points dropped so far (the duplicates of the spilled points are only counted by {@code flush})
+	 */
+	public long getDuplicateCount() {
+		return duplicateCount;
+	}
+
+	/**
+	 * @return True if the points did not fit in the memory budget
+	 */
+	public boolean isSpilled() {
+		return forwardedRun != null;
+	}
+
+	/**
+	 * Remove the files of the external sort
+	 */
+	@Override
+	public void close() {
+		deleteRuns();
+		buffer = null;
+	}
+
+	private void deleteRuns() {
+
+		if(forwardedRun != null)
+			forwardedRun.delete();
+
+		for(File run: runs)
+			run.delete();
+
+		runs.clear();
+	}
+
+	/**
+	 * Double the capacity of the table
+	 */
+	private void grow() {
+
+		long[] oldKeys = keys;
+		int[] oldHashes = hashes;
+
+		keys = new long[2 * oldKeys.length];
+		hashes = new int[2 * oldHashes.length];
+		int mask = hashes.length - 1;
+
+		for(int i = 0; i < oldHashes.length; i++)
+			if(oldHashes[i] != 0) {
+				int slot = (oldHashes[i] >>> 1) & mask;
+
+				while(hashes[slot] != 0)
+					slot = (slot + 1) & mask;
+
+				System.arraycopy(oldKeys, i * width, keys, slot * width, width);
+				hashes[slot] = oldHashes[i];
+			}
+	}
+
+	/**
+	 * Write the points of the table in a file and replace the table by a buffer
+	 */
+	private void spillTable() throws IOException {
+
+		spillFolder.mkdirs();
+
+		int[] order = new int[size];
+		int n = 0;
+
+		for(int i = 0; i < hashes.length; i++)
+			if(hashes[i] != 0)
+				order[n++] = i;
+
+		forwardedRun = writeRun(keys, order, n);
+
+		keys = null;
+		hashes = null;
+		size = 0;
+
+		/* Each point of the buffer also needs two int to be sorted */
+		int capacity = (int) Math.max(1, Math.min(Integer.MAX_VALUE / width, memoryBytes / (8L * width + 8)));
+		buffer = new long[capacity * width];
+		bufferSize = 0;
+	}
+
+	private void addInBuffer(long[] bits) throws IOException {
+
+		if((bufferSize + 1) * width > buffer.length)
+			spillBuffer();
+
+		System.arraycopy(bits, 0, buffer, bufferSize * width, width);
+		bufferSize++;
+	}
+
+	/**
+	 * Write the points of the buffer in a new file
+	 */
+	private void spillBuffer() throws IOException {
+
+		if(bufferSize == 0)
+			return;
+
+		int[] order = new int[bufferSize];
+
+		for(int i = 0; i < bufferSize; i++)
+			order[i] = i;
+
+		runs.add(writeRun(buffer, order, bufferSize));
+		bufferSize = 0;
+	}
+
+	/**
+	 * Write points in a file sorted and without duplicates
+	 * @param data The bits of the points
+	 * @param order Index in {@code data} of each point (sorted by this method)
+	 * @param n Number of points
+	 * @return The file
+	 */
+	private File writeRun(long[] data, int[] order, int n) throws IOException {
+
+		sort(data, order, n);
+
+		File run = File.createTempFile("points", ".run", spillFolder);
+
+		try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run), 1 << 16))){
+
+			for(int i = 0; i < n; i++) {
+				if(i > 0 && compare(data, order[i] * width, data, order[i - 1] * width) == 0) {
+					duplicateCount++;
+					continue;
+				}
+
+				for(int w = 0; w < width; w++)
+					out.writeLong(data[order[i] * width + w]);
+			}
+		}
+
+		return run;
+	}
+
+	/**
+	 * Sort the indices of points (merge sort)
+	 */
+	private void sort(long[] data, int[] order, int n) {
+
+		int[] tmp = new int[n];
+
+		for(int length = 1; length < n; length *= 2) {
+			for(int start = 0; start < n - length; start += 2 * length) {
+				int middle = start + length;
+				int end = Math.min(start + 2 * length, n);
+				int i = start, j = middle, k = start;
+
+				while(i < middle && j < end)
+					tmp[k++] = compare(data, order[j] * width, data, order[i] * width) < 0 ? order[j++] : order[i++];
+
+				while(i < middle)
+					tmp[k++] = order[i++];
+
+				while(j < end)
+					tmp[k++] = order[j++];
+
+				System.arraycopy(tmp, start, order, start, end - start);
+			}
+		}
+	}
+
+	private int hash(long[] data, int offset) {
+
+		long h = 0;
+
+		for(int w = 0; w < width; w++)
+			h = (h ^ data[offset + w]) * 0x9E3779B97F4A7C15L;
+
+		/* 0 denotes an empty slot */
+		return (int) (h ^ h >>> 32) | 1;
+	}
+
+	private boolean equals(long[] data1, int offset1, long[] data2, int offset2) {
+		return compare(data1, offset1, data2, offset2) == 0;
+	}
+
+	private int compare(long[] data1, int offset1, long[] data2, int offset2) {
+
+		for(int w = 0; w < width; w++) {
+			int c = Long.compareUnsigned(data1[offset1 + w], data2[offset2 + w]);
+
+			if(c != 0)
+				return c;
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Sequential reader of the points of a file of the external sort
+	 */
+	private class RunReader {
+
+		DataInputStream in;
+
+		/** True if the points of the file have already been given by {@code add} */
+		boolean isForwarded;
+
+		/** Current point */
+		long[] key;
+
+		RunReader(File run, boolean isForwarded) throws IOException {
+			this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(run), 1 << 16));
+			this.isForwarded = isForwarded;
+		}
+
+		/**
+		 * Read the next point
+		 * @return False if the end of the file is reached
+		 */
+		boolean next() throws IOException {
+
+			long[] next = new long[width];
+
+			try {
+				for(int w = 0; w < width; w++)
+					next[w] = in.readLong();
+			} catch (EOFException e) {
+				return false;
+			}
+
+			key = next;
+			return true;
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package formulation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import exception.InvalidPOIFileFormatException;
+
+/**
+ * Read the points (CONV_SECTION) and the rays (CONE_SECTION) of a porta .poi file.
+ *
+ * The coordinates can be integers or fractions (e.g., "1/2"); each point is stored as integer numerators over a common positive denominator.
+ * The file is parsed by {@code PortaParser}.
+ */
+public class POIReader {
+
+	/**
+	 * A point of the file: its coordinates are numerators[i] / denominator
+	 */
+	public static class Point {
+
+		public final long[] numerators;
+		public final long denominator;
+
+		Point(long[] numerators, long denominator) {
+			this.numerators = numerators;
+			this.denominator = denominator;
+		}
+
+		/**
+		 * @return The coordinates in porta format (e.g., "0 1 1/2 0")
+		 */
+		public String toPortaString() {
+
+			StringBuilder sb = new StringBuilder();
+
+			for(int i = 0; i < numerators.length; i++) {
+				long gcd = Math.abs(PortaParser.gcd(numerators[i], denominator));
+
+				if(i > 0)
+					sb.append(' ');
+
+				sb.append(numerators[i] / gcd);
+
+				if(denominator / gcd != 1)
+					sb.append('/').append(denominator / gcd);
+			}
+
+			return sb.toString();
+		}
+	}
+
+	int dimension = -1;
+	List<Point> points = new ArrayList<>();
+	List<Point> rays = new ArrayList<>();
+
+	/**
+	 * Read a .poi file
+	 * @param poiFile Path of the file (a regular file or a named pipe)
+	 * @throws IOException
+	 * @throws InvalidPOIFileFormatException
+	 */
+	public POIReader(String poiFile) throws IOException, InvalidPOIFileFormatException {
+
+		PortaParser.parsePOI(poiFile, -1, new PortaParser.Handler() {
+
+			@Override
+			public void dimension(int d) {
+				dimension = d;
+			}
+
+			@Override
+			public void point(PortaParser.Section section, int number, Point point) {
+
+				if(section == PortaParser.Section.CONV)
+					points.add(point);
+				else if(section == PortaParser.Section.CONE)
+					rays.add(point);
+			}
+		});
+
+		if(dimension == -1)
+			throw new InvalidPOIFileFormatException("No dimension found in " + poiFile);
+	}
+
+	public int getDimension() {
+		return dimension;
+	}
+
+	/**
+	 * @return The points of the CONV_SECTION
+	 */
+	public List<Point> getPoints() {
+		return points;
+	}
+
+	/**
+	 * @return The rays of the CONE_SECTION
+	 */
+	public List<Point> getRays() {
+		return rays;
+	}
+}
@@ -0,0 +1,135 @@
+package formulation;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.function.Consumer;
+
+/**
+ * Write integer points in a porta .poi file as soon as they are received, so that they do not need to be stored in memory.
+ *
+ * The header (dimension and CONV_SECTION) is written at the creation of the writer and the end of the file at its closure.
+ */
+public class POIWriter implements Consumer<IntegerPoint>, Closeable {
+
+	/** Size of the output buffer in characters */
+	static final int BUFFER_SIZE = 1 << 16;
+
+	BufferedWriter bw;
+
+	/** Text added after the END keyword (e.g., the correspondence between the variables names) */
+	String footer;
+
+	/** Number of points written */
+	long pointCount = 0;
+
+	/** Text of the last 0/1 point written (reused for the next one) */
+	char[] line;
+
+	/**
+	 * Create the file and write its header
+	 * @param poiFile Path of the file
+	 * @param dimension Number of variables
+	 * @param footer Text added after the END keyword
+	 * @throws IOException
+	 */
+	public POIWriter(String poiFile, int dimension, String footer) throws IOException {
+		this(new FileWriter(new File(poiFile)), dimension, footer);
+	}
+
+	/**
+	 * Write the header of a .poi file in a writer
+	 * @param writer The writer (e.g., on a file or a named pipe)
+	 * @param dimension Number of variables
+	 * @param footer Text added after the END keyword
+	 * @throws IOException
+	 */
+	public POIWriter(Writer writer, int dimension, String footer) throws IOException {
+		this.bw = new BufferedWriter(writer, BUFFER_SIZE);
+		this.footer = footer;
+
+		bw.write("DIM=" + dimension + "\n\n");
+		bw.write("CONV_SECTION\n");
+	}
+
+	/**
+	 * Write a point
+	 * @param point The point
+	 * @throws UncheckedIOException
+	 */
+	@Override
+	public void accept(IntegerPoint point) {
+		try {
+			if(point.isBinary())
+				write(point.getBits(), point.getDimension());
+			else
+				write(point.getCoordinates());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Write a 0/1 point given by its bits (the bits are only expanded into text here)
+	 * @param bits The variable of porta index i+1 is set to 1 iff the bit i is set
+	 * @param dimension Number of variables
+	 * @throws IOException
+	 */
+	public void write(long[] bits, int dimension) throws IOException {
+
+		if(line == null || line.length != 2 * dimension + 1) {
+			line = new char[2 * dimension + 1];
+
+			for(int i = 0; i < dimension; i++)
+				line[2 * i + 1] = ' ';
+
+			line[2 * dimension] = '\n';
+		}
+
+		for(int i = 0; i < dimension; i++)
+			line[2 * i] = (bits[i >>> 6] & 1L << i) == 0 ? '0' : '1';
+
+		bw.write(line);
+		pointCount++;
+	}
+
+	/**
+	 * Write a point given by its coordinates (ordered by porta index)
+	 * @param coordinates The point
+	 * @throws IOException
+	 */
+	public void write(int[] coordinates) throws IOException {
+
+		for(int c: coordinates) {
+			bw.write(Integer.toString(c));
+			bw.write(' ');
+		}
+
+		bw.write('\n');
+		pointCount++;
+	}
+
+	/**
+	 * @return The number of points written so far
+	 */
+	public long getPointCount() {
+		return pointCount;
+	}
+
+	/**
+	 * Write the end of the file and close it
+	 */
+	@Override
+	public void close() throws IOException {
+		bw.write("\n\nEND\n");
+
+		if(footer != null)
+			bw.write(footer);
+
+		bw.close();
+	}
+}
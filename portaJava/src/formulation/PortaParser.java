@@ -0,0 +1,570 @@
+package formulation;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import exception.InvalidIEQFileFormatException;
+import exception.InvalidPOIFileFormatException;
+
+/**
+ * Tokenizer of the porta .ieq and .poi files.
+ *
+ * The content of the file is parsed directly from a byte buffer (the file is mapped in memory when possible):
+ * the numbers are read from the bytes and no String is created for the lines of the sections.
+ * The content of the sections is given to a {@code Handler} as typed objects:
+ * - INEQUALITIES_SECTION: an {@code Inequality} by line (e.g., "(  9) -x2-x10+x11 <= 0");
+ * - CONV_SECTION, CONE_SECTION and VALID: a {@code POIReader.Point} by line (e.g., "(  3) 0 1 1/2 0").
+ * All the other lines (DIM, section names, other sections such as LOWER_BOUNDS, ...) are given as byte ranges.
+ *
+ * Example:
+ * PortaParser.parseIEQ("tmp.poi.ieq", -1, new PortaParser.Handler() {
+ *     public void inequality(int number, Inequality inequality) { ... }
+ * });
+ */
+public class PortaParser {
+
+	/** Section of a porta file */
+	public enum Section{
+		NONE, INEQUALITIES, CONV, CONE, VALID,
+
+		/* Sections whose lines are not parsed (LOWER_BOUNDS, UPPER_BOUNDS, ELIMINATION_ORDER, ...) */
+		OTHER
+	}
+
+	/**
+	 * Receive the content of a porta file
+	 */
+	public interface Handler {
+
+		/**
+		 * @param dimension The dimension given by the line DIM
+		 */
+		default void dimension(int dimension) throws IOException {}
+
+		/**
+		 * @param number Number of the inequality in the file (e.g., 9 for "(  9) -x2-x10+x11 <= 0"); 0 if it is not numbered
+		 * @param inequality An inequality of the INEQUALITIES_SECTION
+		 */
+		default void inequality(int number, Inequality inequality) throws IOException {}
+
+		/**
+		 * @param section CONV (point), CONE (ray) or VALID (valid point)
+		 * @param number Number of the point in the file; 0 if it is not numbered
+		 * @param point The point
+		 */
+		default void point(Section section, int number, POIReader.Point point) throws IOException {}
+
+		/**
+		 * A line which is not parsed (see {@code lineToString} to get its content)
+		 * @param buffer The content of the file
+		 * @param start Index of the first byte of the line
+		 * @param end Index following the last byte of the line (without the line terminator)
+		 */
+		default void otherLine(ByteBuffer buffer, int start, int end) throws IOException {}
+	}
+
+	/** Error in the content of the file (converted into the exception of the type of file by the entry points) */
+	static class FormatError extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		FormatError(String message) {
+			super(message);
+		}
+	}
+
+	static final byte[] DIM = bytes("DIM");
+	static final byte[] INEQUALITIES_SECTION = bytes("INEQUALITIES_SECTION");
+	static final byte[] CONV_SECTION = bytes("CONV_SECTION");
+	static final byte[] CONE_SECTION = bytes("CONE_SECTION");
+	static final byte[] VALID = bytes("VALID");
+	static final byte[] END = bytes("END");
+
+	ByteBuffer buffer;
+	Handler handler;
+
+	/** Number of variables; -1 until the line DIM is read */
+	int dimension;
+
+	/** True if the dimension has been given by the caller (the line DIM must then give the same dimension) */
+	boolean isDimensionGiven;
+
+	Section section = Section.NONE;
+
+	/** Position in {@code buffer} */
+	int position;
+
+	/** Index following the last byte of the current line */
+	int lineEnd;
+
+	/** Denominator of each coordinate of the current point */
+	long[] denominators;
+
+	PortaParser(ByteBuffer buffer, int dimension, Handler handler) {
+		this.buffer = buffer;
+		this.handler = handler;
+		this.dimension = dimension;
+		this.isDimensionGiven = dimension != -1;
+	}
+
+	/**
+	 * Parse a porta .ieq file
+	 * @param ieqFile Path of the file (a regular file or a named pipe)
+	 * @param dimension Number of variables; -1 to use the line DIM of the file
+	 * @param handler Receives the content of the file
+	 * @throws IOException
+	 * @throws InvalidIEQFileFormatException
+	 */
+	public static void parseIEQ(String ieqFile, int dimension, Handler handler) throws IOException, InvalidIEQFileFormatException {
+
+		try {
+			new PortaParser(read(ieqFile), dimension, handler).parse();
+		}
+		catch(FormatError e) {
+			throw new InvalidIEQFileFormatException(e.getMessage() + " in " + ieqFile);
+		}
+	}
+
+	/**
+	 * Parse a porta .poi file
+	 * @param poiFile Path of the file (a regular file or a named pipe)
+	 * @param dimension Number of variables; -1 to use the line DIM of the file
+	 * @param handler Receives the content of the file
+	 * @throws IOException
+	 * @throws InvalidPOIFileFormatException
+	 */
+	public static void parsePOI(String poiFile, int dimension, Handler handler) throws IOException, InvalidPOIFileFormatException {
+
+		try {
+			new PortaParser(read(poiFile), dimension, handler).parse();
+		}
+		catch(FormatError e) {
+			throw new InvalidPOIFileFormatException(e.getMessage() + " in " + poiFile);
+		}
+	}
+
+	/**
+	 * Parse one inequality written in porta format (e.g., "(  9)     -x2  -x10+x11 <= 0" or "2 x1 + x2 == 1")
+	 * @param line The line
+	 * @param dimension Number of variables
+	 * @return The inequality
+	 * @throws InvalidIEQFileFormatException
+	 */
+	public static Inequality parseInequality(String line, int dimension) throws InvalidIEQFileFormatException {
+
+		PortaParser parser = new PortaParser(ByteBuffer.wrap(line.getBytes(StandardCharsets.ISO_8859_1)), dimension, null);
+		parser.lineEnd = parser.buffer.limit();
+
+		try {
+			return parser.inequality();
+		}
+		catch(FormatError e) {
+			throw new InvalidIEQFileFormatException(e.getMessage());
+		}
+	}
+
+	/**
+	 * @return The content of a line given to {@code Handler.otherLine}
+	 */
+	public static String lineToString(ByteBuffer buffer, int start, int end) {
+
+		byte[] bytes = new byte[end - start];
+
+		for(int i = start; i < end; i++)
+			bytes[i - start] = buffer.get(i);
+
+		return new String(bytes, StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Get the content of a file: a regular file is mapped in memory, a named pipe is read
+	 */
+	static ByteBuffer read(String file) throws IOException {
+
+		File f = new File(file);
+
+		if(f.isFile() && f.length() <= Integer.MAX_VALUE)
+			try(FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ)){
+				return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			}
+
+		try(InputStream is = f.isFile() ? Files.newInputStream(f.toPath()) : new FileInputStream(f)){
+			return ByteBuffer.wrap(is.readAllBytes());
+		}
+	}
+
+	void parse() throws IOException {
+
+		int limit = buffer.limit();
+		position = 0;
+
+		while(position < limit) {
+
+			int lineStart = position;
+			lineEnd = lineStart;
+
+			while(lineEnd < limit && buffer.get(lineEnd) != '\n')
+				lineEnd++;
+
+			int next = lineEnd + 1;
+
+			if(lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r')
+				lineEnd--;
+
+			position = lineStart;
+			skipSpaces();
+
+			if(position == lineEnd)
+				handler.otherLine(buffer, lineStart, lineEnd);
+
+			/* The keywords are in upper case and the variables in lower case */
+			else if(isUpperCase(buffer.get(position))) {
+				keyword();
+				handler.otherLine(buffer, lineStart, lineEnd);
+			}
+			else if(section == Section.INEQUALITIES) {
+				checkDimension();
+				handler.inequality(number(), inequality());
+			}
+			else if(section == Section.CONV || section == Section.CONE || section == Section.VALID) {
+				checkDimension();
+				handler.point(section, number(), point());
+			}
+			else
+				handler.otherLine(buffer, lineStart, lineEnd);
+
+			position = next;
+		}
+	}
+
+	/**
+	 * @return The number in brackets at the beginning of the current line; 0 if there is none
+	 */
+	private int number() {
+
+		int start = position;
+		int n = skipNumber();
+
+		position = start;
+		return n;
+	}
+
+	/**
+	 * Skip the number in brackets at the current position if any
+	 * @return The number; 0 if there is no number
+	 */
+	private int skipNumber() {
+
+		skipSpaces();
+
+		if(position >= lineEnd || buffer.get(position) != '(')
+			return 0;
+
+		position++;
+		skipSpaces();
+		long n = digits();
+		skipSpaces();
+
+		if(n < 0 || position >= lineEnd || buffer.get(position) != ')')
+			throw error("Invalid line number");
+
+		position++;
+		return (int) n;
+	}
+
+	/**
+	 * Read the keyword at the current position (DIM or a section name)
+	 */
+	private void keyword() throws IOException {
+
+		if(matches(DIM)) {
+			position += DIM.length;
+			skipSpaces();
+
+			if(position >= lineEnd || buffer.get(position) != '=')
+				throw error("Invalid dimension");
+
+			position++;
+			skipSpaces();
+			long d = digits();
+
+			if(d < 0)
+				throw error("Invalid dimension");
+
+			if(isDimensionGiven && d != dimension)
+				throw error("The dimension " + d + " is different from " + dimension);
+
+			dimension = (int) d;
+			handler.dimension(dimension);
+			return;
+		}
+
+		if(matches(INEQUALITIES_SECTION))
+			section = Section.INEQUALITIES;
+		else if(matches(CONV_SECTION))
+			section = Section.CONV;
+		else if(matches(CONE_SECTION))
+			section = Section.CONE;
+		else if(matches(VALID))
+			section = Section.VALID;
+		else if(matches(END))
+			section = Section.NONE;
+		else
+			section = Section.OTHER;
+	}
+
+	/**
+	 * Parse the inequality at the current position
+	 */
+	private Inequality inequality() {
+
+		skipNumber();
+
+		long[] coefficients = new long[dimension];
+		boolean isTermRead = false;
+
+		while(true) {
+			skipSpaces();
+
+			if(position >= lineEnd)
+				throw error("No operator found in the inequality");
+
+			byte c = buffer.get(position);
+
+			if(c == '<' || c == '>' || c == '=')
+				break;
+
+			/* Sign of the term (it can only be omitted for the first term) */
+			long sign = 1;
+
+			if(c == '+' || c == '-') {
+				sign = c == '-' ? -1 : 1;
+				position++;
+				skipSpaces();
+			}
+			else if(isTermRead)
+				throw error("Unexpected term in the inequality");
+
+			/* Coefficient of the term (1 if omitted) */
+			long coefficient = digits();
+
+			if(coefficient == -1)
+				coefficient = 1;
+
+			skipSpaces();
+
+			if(position >= lineEnd || buffer.get(position) != 'x')
+				throw error("Unexpected term in the inequality");
+
+			position++;
+			long variable = digits();
+
+			if(variable < 1 || variable > dimension)
+				throw error("Variable x" + variable + " out of range in the inequality");
+
+			try {
+				coefficients[(int) variable - 1] = Math.addExact(coefficients[(int) variable - 1], Math.multiplyExact(sign, coefficient));
+			}
+			catch(ArithmeticException e) {
+				throw error("Coefficient too large in the inequality");
+			}
+
+			isTermRead = true;
+		}
+
+		/* The operator (the LP file variants "=<", "=>", "<", ">" and "=" are also accepted) */
+		byte c1 = buffer.get(position++);
+		byte c2 = position < lineEnd ? buffer.get(position) : (byte) ' ';
+
+		if(c2 == '<' || c2 == '>' || c2 == '=')
+			position++;
+
+		Inequality.Sense sense;
+
+		if(c1 == '<' || c1 == '=' && c2 == '<')
+			sense = Inequality.Sense.LESS_OR_EQUAL;
+		else if(c1 == '>' || c1 == '=' && c2 == '>')
+			sense = Inequality.Sense.GREATER_OR_EQUAL;
+		else
+			sense = Inequality.Sense.EQUAL;
+
+		long rhs = signedInteger("Invalid right-hand side in the inequality");
+		skipSpaces();
+
+		if(position != lineEnd)
+			throw error("Unexpected characters after the right-hand side of the inequality");
+
+		return new Inequality(coefficients, sense, rhs);
+	}
+
+	/**
+	 * Parse the point at the current position: its coordinates are integers or fractions and are put on a common denominator
+	 */
+	private POIReader.Point point() {
+
+		skipNumber();
+
+		long[] numerators = new long[dimension];
+
+		if(denominators == null || denominators.length != dimension)
+			denominators = new long[dimension];
+
+		long denominator = 1;
+
+		try {
+			for(int i = 0; i < dimension; i++) {
+				skipSpaces();
+
+				if(position >= lineEnd)
+					throw error("The point does not have " + dimension + " coordinates");
+
+				numerators[i] = signedInteger("Unable to parse the point");
+				denominators[i] = 1;
+
+				if(position < lineEnd && buffer.get(position) == '/') {
+					position++;
+					denominators[i] = digits();
+
+					if(denominators[i] <= 0)
+						throw error("Invalid denominator in the point");
+
+					denominator = Math.multiplyExact(denominator / gcd(denominator, denominators[i]), denominators[i]);
+				}
+			}
+
+			/* Common denominator */
+			if(denominator != 1)
+				for(int i = 0; i < dimension; i++)
+					numerators[i] = Math.multiplyExact(numerators[i], denominator / denominators[i]);
+		}
+		catch(ArithmeticException e) {
+			throw error("Coordinate too large in the point");
+		}
+
+		skipSpaces();
+
+		if(position != lineEnd)
+			throw error("The point does not have " + dimension + " coordinates");
+
+		return new POIReader.Point(numerators, denominator);
+	}
+
+	/**
+	 * Read an integer with an optional sign (possibly followed by spaces)
+	 * @param message Error message if there is no integer
+	 */
+	private long signedInteger(String message) {
+
+		skipSpaces();
+		long sign = 1;
+
+		if(position < lineEnd && (buffer.get(position) == '-' || buffer.get(position) == '+')) {
+			sign = buffer.get(position) == '-' ? -1 : 1;
+			position++;
+			skipSpaces();
+		}
+
+		long value = digits();
+
+		if(value == -1)
+			throw error(message);
+
+		return sign * value;
+	}
+
+	/**
+	 * Read a non-negative integer
+	 * @return The integer; -1 if there is no digit at the current position
+	 */
+	private long digits() {
+
+		if(position >= lineEnd || !isDigit(buffer.get(position)))
+			return -1;
+
+		long value = 0;
+
+		while(position < lineEnd && isDigit(buffer.get(position))) {
+
+			try {
+				value = Math.addExact(Math.multiplyExact(value, 10), buffer.get(position) - '0');
+			}
+			catch(ArithmeticException e) {
+				throw error("Number too large");
+			}
+
+			position++;
+		}
+
+		return value;
+	}
+
+	private void skipSpaces() {
+		while(position < lineEnd && (buffer.get(position) == ' ' || buffer.get(position) == '\t'))
+			position++;
+	}
+
+	/**
+	 * @return True if the keyword is at the current position and is followed by a character which cannot be part of a keyword
+	 */
+	private boolean matches(byte[] keyword) {
+
+		if(position + keyword.length > lineEnd)
+			return false;
+
+		for(int i = 0; i < keyword.length; i++)
+			if(buffer.get(position + i) != keyword[i])
+				return false;
+
+		int next = position + keyword.length;
+
+		return next == lineEnd || !isUpperCase(buffer.get(next)) && buffer.get(next) != '_';
+	}
+
+	private void checkDimension() {
+		if(dimension == -1)
+			throw error("The dimension is not given before the section");
+	}
+
+	/**
+	 * @return An error which includes the current line
+	 */
+	private FormatError error(String message) {
+
+		int start = position;
+
+		while(start > 0 && buffer.get(start - 1) != '\n')
+			start--;
+
+		return new FormatError(message + " (\"" + lineToString(buffer, start, lineEnd).trim() + "\")");
+	}
+
+	private static boolean isDigit(byte b) {
+		return b >= '0' && b <= '9';
+	}
+
+	private static boolean isUpperCase(byte b) {
+		return b >= 'A' && b <= 'Z';
+	}
+
+	static long gcd(long a, long b) {
+
+		while(b != 0) {
+			long t = a % b;
+			a = b;
+			b = t;
+		}
+
+		return a;
+	}
+
+	private static byte[] bytes(String s) {
+		return s.getBytes(StandardCharsets.ISO_8859_1);
+	}
+}
@@ -2,6 +2,7 @@ package formulation.example;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import exception.UnknownCommandException;
@@ -58,6 +59,14 @@ public class KnapsackIntegerPoints extends AbstractIntegerPoints{
 			this.registerVariable(new Variable("x" + i, 0, 1));
 	}
 
+	/**
+	 * The points depend on the weights of the items and on the maximal weight of the knapsack
+	 */
+	@Override
+	protected String getInstanceDescription() {
+		return super.getInstanceDescription() + "K = " + K + "\nw = " + Arrays.toString(w) + "\n";
+	}
+
 	@Override
 	public void createIntegerPoints() throws UnknownVariableName {
 
@@ -245,8 +245,8 @@ public class MediationCluster extends AbstractFormulation{
 
 			formulation.writeFacetsInFile(folderPath + "_facets_" + prefix + ".ieq");
 
-			formulation.convertPOIFile("./.tmp/tmp.poi", folderPath + "_integer_points_" + prefix + ".poi");
-			formulation.convertIEQFile("./.tmp/tmp.ieq", folderPath + "_formulation_" + prefix + ".ieq", false);
+			formulation.convertPOIFile(formulation.sTmpPOIFile, folderPath + "_integer_points_" + prefix + ".poi");
+			formulation.convertIEQFile(formulation.sTmpIEQFile, folderPath + "_formulation_" + prefix + ".ieq", false);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
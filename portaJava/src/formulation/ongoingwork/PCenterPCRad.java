@@ -256,8 +256,8 @@ public class PCenterPCRad extends AbstractFormulation {
 
 			formulation.writeFacetsInFile(folderPath + prefix + "facets.ieq");
 
-			formulation.convertPOIFile("./.tmp/tmp.poi", folderPath + prefix + inputFile + "_integer_points.poi");
-			formulation.convertIEQFile("./.tmp/tmp.ieq", folderPath + prefix + inputFile + "_formulation.ieq", false);
+			formulation.convertPOIFile(formulation.sTmpPOIFile, folderPath + prefix + inputFile + "_integer_points.poi");
+			formulation.convertIEQFile(formulation.sTmpIEQFile, folderPath + prefix + inputFile + "_formulation.ieq", false);
 			
 //			for(int p = 1; p <= pMax; p++) {
 //				String inputFile = "pc5_" + p + "_prime";//"pc5_3"; //"pc20_5";
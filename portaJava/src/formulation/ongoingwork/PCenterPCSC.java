@@ -226,8 +226,8 @@ public class PCenterPCSC extends AbstractFormulation {
 
 			System.out.println(formulation.getIPDimension());
 
-			formulation.convertPOIFile("./.tmp/tmp.poi", "./.tmp/" + inputFile + "_converted_integer_points.poi");
-			formulation.convertIEQFile("./.tmp/tmp.ieq", "./.tmp/" + inputFile + "_converted_formulation.ieq", false);
+			formulation.convertPOIFile(formulation.sTmpPOIFile, "./.tmp/" + inputFile + "_converted_integer_points.poi");
+			formulation.convertIEQFile(formulation.sTmpIEQFile, "./.tmp/" + inputFile + "_converted_formulation.ieq", false);
 			//			formulation.convertIEQFile("./.tmp/tmp.poi.ieq", "./.tmp/converted_facets.ieq");
 		} catch (Exception e) {
 			e.printStackTrace();
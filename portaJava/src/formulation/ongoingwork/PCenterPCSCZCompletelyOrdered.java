@@ -132,8 +132,8 @@ public class PCenterPCSCZCompletelyOrdered extends PCenterPCSC{
 			System.out.println(formulation.getIPDimension());
 			//			Porta.getFacets(formulation, "./.tmp/" + inputFile + "_ordered_facets.ieq");
 
-			formulation.convertPOIFile("./.tmp/tmp.poi", "./.tmp/" + inputFile + "_nOrdered_converted_integer_points.poi");
-			formulation.convertIEQFile("./.tmp/tmp.ieq", "./.tmp/" + inputFile + "_nOrdered_converted_formulation.ieq", false);
+			formulation.convertPOIFile(formulation.sTmpPOIFile, "./.tmp/" + inputFile + "_nOrdered_converted_integer_points.poi");
+			formulation.convertIEQFile(formulation.sTmpIEQFile, "./.tmp/" + inputFile + "_nOrdered_converted_formulation.ieq", false);
 			//			formulation.convertIEQFile("./.tmp/tmp.poi.ieq", "./.tmp/" + inputFile + "_ordered_converted_facets.ieq");
 			//			formulation.convertIEQFile("./.tmp/tmp.poi.ieq", "./.tmp/converted_facets.ieq");
 		} catch (Exception e) {
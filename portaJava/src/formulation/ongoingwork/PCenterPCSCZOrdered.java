@@ -111,8 +111,8 @@ public class PCenterPCSCZOrdered extends PCenterPCSC{
 			
 			//			Porta.getFacets(formulation, "./.tmp/" + inputFile + "_ordered_facets.ieq");
 
-			formulation.convertPOIFile("./.tmp/tmp.poi", "./.tmp/" + inputFile + "_ordered_converted_integer_points.poi");
-			formulation.convertIEQFile("./.tmp/tmp.ieq", "./.tmp/" + inputFile + "_ordered_converted_formulation.ieq", false);
+			formulation.convertPOIFile(formulation.sTmpPOIFile, "./.tmp/" + inputFile + "_ordered_converted_integer_points.poi");
+			formulation.convertIEQFile(formulation.sTmpIEQFile, "./.tmp/" + inputFile + "_ordered_converted_formulation.ieq", false);
 			//			formulation.convertIEQFile("./.tmp/tmp.poi.ieq", "./.tmp/" + inputFile + "_ordered_converted_facets.ieq");
 			//			formulation.convertIEQFile("./.tmp/tmp.poi.ieq", "./.tmp/converted_facets.ieq");
 		} catch (Exception e) {
@@ -85,8 +85,8 @@ public class TestLPTrain extends LPReader{
 
 				formulation.writeFacetsInFile("./.tmp/facet.ieq");
 
-				formulation.convertPOIFile("./.tmp/tmp.poi", "./.tmp/" + inputFile + "_ordered_converted_integer_points.poi");
-				formulation.convertIEQFile("./.tmp/tmp.ieq", "./.tmsncf1.lpp/" + inputFile + "_ordered_converted_formulation.ieq", false);
+				formulation.convertPOIFile(formulation.sTmpPOIFile, "./.tmp/" + inputFile + "_ordered_converted_integer_points.poi");
+				formulation.convertIEQFile(formulation.sTmpIEQFile, "./.tmsncf1.lpp/" + inputFile + "_ordered_converted_formulation.ieq", false);
 				break;
 			}
 		} catch (Exception e) {
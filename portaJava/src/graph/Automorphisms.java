@@ -0,0 +1,481 @@
+package graph;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Compute a generating set of the automorphism group of a graph by individualization and refinement.
+ *
+ * - Refinement: the vertices are colored and the coloring is refined until each vertex of a color has the same number of neighbours of each color (equitable partition).
+ *   The new colors only depend on the old colors and on the adjacencies, never on the vertex numbers.
+ * - Individualization: when the coloring is not discrete, a vertex of the first non-trivial color class is given its own color and the coloring is refined again.
+ *
+ * Let v1, v2, ..., vk be the vertices individualized along the first path of the search tree (always choosing the first vertex of the class).
+ * For each level i (from the deepest one) and each vertex w of the class of vi which is not already in the orbit of vi under the generators found so far,
+ * the subtree obtained by individualizing w instead of vi is searched for a leaf equivalent to the first leaf.
+ * Such a leaf gives an automorphism which fixes v1, ..., v(i-1) and maps vi on w. The automorphisms found generate the whole group.
+ *
+ * A canonical labeling is obtained from the leaf whose relabeled adjacency matrix is the largest, the search being pruned with the generators.
+ *
+ * The vertices are numbered from 1 to n. A permutation is an int[n+1] array p in which p[v] is the image of v (p[0] is not used).
+ */
+public class Automorphisms {
+
+	/** Number of vertices */
+	int n;
+
+	/** Number of edges between each pair of vertices (0-indexed) */
+	int[][] adjacency;
+
+	/** Coloring at each level of the first path */
+	List<int[]> firstPath = new ArrayList<>();
+
+	/** Number of vertices of each color at each level of the first path */
+	List<int[]> firstPathCellSizes = new ArrayList<>();
+
+	/** Vertex (0-indexed) of each color in the first leaf */
+	int[] firstLeaf;
+
+	/** Generators found (0-indexed permutations) */
+	List<int[]> generators = new ArrayList<>();
+
+	/** Order of the automorphism group */
+	BigInteger groupSize = BigInteger.ONE;
+
+	/** Canonical label (0-indexed) of each vertex; null until {@code getCanonicalLabeling()} is called */
+	int[] canonicalLabeling;
+
+	/** Adjacency matrix of the canonical leaf (row by row) */
+	int[] canonicalMatrix;
+
+	/**
+	 * Compute the automorphism group of a graph
+	 * @param n Number of vertices
+	 * @param adj List of edges, each edge being a list of its two extremities (between 1 and n)
+	 */
+	public Automorphisms(int n, ArrayList<ArrayList<Integer>> adj) {
+
+		this.n = n;
+		this.adjacency = new int[n][n];
+
+		for(ArrayList<Integer> edge: adj) {
+			int x1 = edge.get(0) - 1;
+			int x2 = edge.get(1) - 1;
+			adjacency[x1][x2]++;
+
+			if(x1 != x2)
+				adjacency[x2][x1]++;
+		}
+
+		if(n > 0)
+			search();
+	}
+
+	/**
+	 * @return A generating set of the automorphism group (identity excluded)
+	 */
+	public List<int[]> getGenerators() {
+
+		List<int[]> result = new ArrayList<>();
+
+		for(int[] g: generators) {
+			int[] p = new int[n + 1];
+
+			for(int v = 0; v < n; v++)
+				p[v + 1] = g[v] + 1;
+
+			result.add(p);
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return The order of the automorphism group
+	 */
+	public BigInteger getGroupSize() {
+		return groupSize;
+	}
+
+	/**
+	 * @return An array in which the entry of vertex v is the smallest vertex of its orbit (entry 0 is not used)
+	 */
+	public int[] getOrbits() {
+
+		int[] orbit = orbits(generators);
+		int[] result = new int[n + 1];
+
+		for(int v = 0; v < n; v++)
+			result[v + 1] = orbit[v] + 1;
+
+		return result;
+	}
+
+	/**
+	 * Compute a canonical labeling of the graph: two graphs are isomorphic iff relabeling them with their canonical labelings gives the same graph.
+	 * The labeling is given by the leaf of the search tree whose relabeled adjacency matrix is the largest in lexicographic order.
+	 * The whole search tree is explored except the subtrees which are images by a known automorphism of an already explored sibling.
+	 * @return Array in which entry v is the canonical label of vertex v (between 1 and n; entry 0 is not used)
+	 */
+	public int[] getCanonicalLabeling() {
+
+		if(canonicalLabeling == null) {
+			canonicalLabeling = new int[n];
+
+			if(n > 0)
+				canonicalSearch(firstPath.get(0), new ArrayList<>());
+		}
+
+		int[] result = new int[n + 1];
+
+		for(int v = 0; v < n; v++)
+			result[v + 1] = canonicalLabeling[v] + 1;
+
+		return result;
+	}
+
+	/**
+	 * @return A string which identifies the isomorphism class of the graph: its number of vertices followed by its edges relabeled with the canonical labeling (e.g., "3:1-2,1-3")
+	 */
+	public String getCanonicalForm() {
+
+		getCanonicalLabeling();
+
+		StringBuilder sb = new StringBuilder().append(n).append(':');
+		boolean isFirst = true;
+
+		for(int i = 0; i < n; i++)
+			for(int j = i; j < n; j++)
+				for(int k = 0; k < canonicalMatrix[i * n + j]; k++) {
+					if(!isFirst)
+						sb.append(',');
+					sb.append(i + 1).append('-').append(j + 1);
+					isFirst = false;
+				}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Explore a subtree of the search tree to find the canonical leaf
+	 * @param color Coloring of the root of the subtree
+	 * @param individualized Vertices individualized to reach the root of the subtree
+	 */
+	private void canonicalSearch(int[] color, List<Integer> individualized) {
+
+		int target = targetCell(color);
+
+		/* Leaf: compare the relabeled adjacency matrix with the best one */
+		if(target == -1) {
+			int[] matrix = new int[n * n];
+
+			for(int u = 0; u < n; u++)
+				for(int v = 0; v < n; v++)
+					matrix[color[u] * n + color[v]] = adjacency[u][v];
+
+			if(canonicalMatrix == null || Arrays.compare(matrix, canonicalMatrix) > 0) {
+				canonicalMatrix = matrix;
+				System.arraycopy(color, 0, canonicalLabeling, 0, n);
+			}
+
+			return;
+		}
+
+		/* Only explore one child in each orbit of the known automorphisms which fix the individualized vertices */
+		List<int[]> stabilizer = new ArrayList<>();
+
+		for(int[] g: generators) {
+			boolean isFixing = true;
+
+			for(int v: individualized)
+				isFixing &= g[v] == v;
+
+			if(isFixing)
+				stabilizer.add(g);
+		}
+
+		int[] orbit = orbits(stabilizer);
+		boolean[] isOrbitExplored = new boolean[n];
+
+		for(int w = 0; w < n; w++)
+			if(color[w] == target && !isOrbitExplored[orbit[w]]) {
+				isOrbitExplored[orbit[w]] = true;
+				individualized.add(w);
+				canonicalSearch(refine(individualize(color, w)), individualized);
+				individualized.remove(individualized.size() - 1);
+			}
+	}
+
+	/**
+	 * Give the permutation of the edges induced by a permutation of the vertices
+	 * (if several edges link the same vertices, the k-th one is mapped on the k-th one)
+	 * @param adj List of edges
+	 * @param permutation Permutation of the vertices (p[v] is the image of v)
+	 * @return Array in which entry e is the index of the image of edge e
+	 */
+	public static int[] edgePermutation(ArrayList<ArrayList<Integer>> adj, int[] permutation) {
+
+		/* Indices of the edges between each pair of vertices */
+		HashMap<List<Integer>, List<Integer>> edgesByExtremities = new HashMap<>();
+
+		for(int e = 0; e < adj.size(); e++)
+			edgesByExtremities.computeIfAbsent(key(adj.get(e).get(0), adj.get(e).get(1)), k -> new ArrayList<>()).add(e);
+
+		HashMap<List<Integer>, Integer> used = new HashMap<>();
+		int[] result = new int[adj.size()];
+
+		for(int e = 0; e < adj.size(); e++) {
+			List<Integer> image = key(permutation[adj.get(e).get(0)], permutation[adj.get(e).get(1)]);
+			int k = used.merge(image, 1, Integer::sum) - 1;
+			result[e] = edgesByExtremities.get(image).get(k);
+		}
+
+		return result;
+	}
+
+	private static List<Integer> key(int x1, int x2) {
+		return Arrays.asList(Math.min(x1, x2), Math.max(x1, x2));
+	}
+
+	private void search() {
+
+		/* Build the first path */
+		int[] color = refine(new int[n]);
+
+		while(true) {
+			firstPath.add(color);
+			firstPathCellSizes.add(cellSizes(color));
+			int target = targetCell(color);
+
+			if(target == -1)
+				break;
+
+			color = refine(individualize(color, firstVertexOfColor(color, target)));
+		}
+
+		firstLeaf = new int[n];
+
+		for(int v = 0; v < n; v++)
+			firstLeaf[color[v]] = v;
+
+		/* For each level from the deepest one, find the images of the individualized vertex */
+		for(int level = firstPath.size() - 2; level >= 0; level--) {
+
+			int[] levelColor = firstPath.get(level);
+			int target = targetCell(levelColor);
+			int vi = firstVertexOfColor(levelColor, target);
+
+			int[] orbit = orbits(generators);
+
+			for(int w = 0; w < n; w++)
+				if(levelColor[w] == target && orbit[w] != orbit[vi]) {
+					int[] automorphism = findEquivalentLeaf(refine(individualize(levelColor, w)), level + 1);
+
+					if(automorphism != null) {
+						generators.add(automorphism);
+						orbit = orbits(generators);
+					}
+				}
+
+			/* Orbit-stabilizer: the order of the group is the product of the sizes of the orbits of the vi */
+			int orbitSize = 0;
+
+			for(int w = 0; w < n; w++)
+				if(orbit[w] == orbit[vi])
+					orbitSize++;
+
+			groupSize = groupSize.multiply(BigInteger.valueOf(orbitSize));
+		}
+	}
+
+	/**
+	 * Search a subtree for a leaf equivalent to the first leaf
+	 * @param color Coloring of the root of the subtree
+	 * @param level Level of the root of the subtree
+	 * @return The automorphism which maps the first leaf on the leaf found; null if there is none
+	 */
+	private int[] findEquivalentLeaf(int[] color, int level) {
+
+		/* The colorings of equivalent nodes have the same color class sizes */
+		if(level >= firstPathCellSizes.size() || !Arrays.equals(cellSizes(color), firstPathCellSizes.get(level)))
+			return null;
+
+		int target = targetCell(color);
+
+		if(target == -1) {
+			int[] permutation = new int[n];
+
+			for(int v = 0; v < n; v++)
+				permutation[firstLeaf[color[v]]] = v;
+
+			return isAutomorphism(permutation) ? permutation : null;
+		}
+
+		for(int w = 0; w < n; w++)
+			if(color[w] == target) {
+				int[] automorphism = findEquivalentLeaf(refine(individualize(color, w)), level + 1);
+
+				if(automorphism != null)
+					return automorphism;
+			}
+
+		return null;
+	}
+
+	private boolean isAutomorphism(int[] permutation) {
+		for(int u = 0; u < n; u++)
+			for(int v = 0; v < n; v++)
+				if(adjacency[u][v] != adjacency[permutation[u]][permutation[v]])
+					return false;
+		return true;
+	}
+
+	/**
+	 * @return For each vertex, the smallest vertex of its orbit under a set of permutations
+	 */
+	private int[] orbits(List<int[]> permutations) {
+
+		int[] parent = new int[n];
+
+		for(int v = 0; v < n; v++)
+			parent[v] = v;
+
+		for(int[] p: permutations)
+			for(int v = 0; v < n; v++) {
+				int r1 = find(parent, v);
+				int r2 = find(parent, p[v]);
+
+				if(r1 != r2)
+					parent[Math.max(r1, r2)] = Math.min(r1, r2);
+			}
+
+		int[] result = new int[n];
+
+		for(int v = 0; v < n; v++)
+			result[v] = find(parent, v);
+
+		return result;
+	}
+
+	private static int find(int[] parent, int v) {
+		while(parent[v] != v) {
+			parent[v] = parent[parent[v]];
+			v = parent[v];
+		}
+		return v;
+	}
+
+	/**
+	 * @return The smallest color which contains at least two vertices; -1 if the coloring is discrete
+	 */
+	private int targetCell(int[] color) {
+
+		int[] sizes = cellSizes(color);
+
+		for(int c = 0; c < sizes.length; c++)
+			if(sizes[c] > 1)
+				return c;
+
+		return -1;
+	}
+
+	private int firstVertexOfColor(int[] color, int c) {
+		for(int v = 0; v < n; v++)
+			if(color[v] == c)
+				return v;
+		return -1;
+	}
+
+	private int[] cellSizes(int[] color) {
+
+		int[] sizes = new int[n];
+
+		for(int v = 0; v < n; v++)
+			sizes[color[v]]++;
+
+		return sizes;
+	}
+
+	/**
+	 * Give a vertex its own color, smaller than the one of the other vertices of its former color
+	 */
+	private int[] individualize(int[] color, int vertex) {
+
+		int[][] keys = new int[n][];
+
+		for(int v = 0; v < n; v++)
+			keys[v] = new int[] {color[v], v == vertex ? 0 : 1};
+
+		return rank(keys);
+	}
+
+	/**
+	 * Refine a coloring until it is equitable. Each new color only depends on the former color of the vertex and on the number of edges towards each color.
+	 * @param color Colors between 0 and k-1
+	 * @return The refined coloring
+	 */
+	int[] refine(int[] color) {
+
+		int colorCount = countColors(color);
+
+		while(true) {
+			int[][] keys = new int[n][];
+
+			for(int v = 0; v < n; v++) {
+
+				/* Number of edges from v to each color */
+				int[] edgesByColor = new int[colorCount];
+
+				for(int u = 0; u < n; u++)
+					edgesByColor[color[u]] += adjacency[v][u];
+
+				keys[v] = new int[colorCount + 1];
+				keys[v][0] = color[v];
+				System.arraycopy(edgesByColor, 0, keys[v], 1, colorCount);
+			}
+
+			int[] newColor = rank(keys);
+			int newColorCount = countColors(newColor);
+
+			if(newColorCount == colorCount)
+				return newColor;
+
+			color = newColor;
+			colorCount = newColorCount;
+		}
+	}
+
+	private int countColors(int[] color) {
+		int max = -1;
+		for(int c: color)
+			max = Math.max(max, c);
+		return max + 1;
+	}
+
+	/**
+	 * @return The rank of the key of each vertex among the distinct keys (in lexicographic order)
+	 */
+	private int[] rank(int[][] keys) {
+
+		Integer[] order = new Integer[n];
+
+		for(int v = 0; v < n; v++)
+			order[v] = v;
+
+		Arrays.sort(order, (a, b) -> Arrays.compare(keys[a], keys[b]));
+
+		int[] result = new int[n];
+		int current = 0;
+
+		for(int i = 0; i < n; i++) {
+			if(i > 0 && Arrays.compare(keys[order[i - 1]], keys[order[i]]) != 0)
+				current++;
+			result[order[i]] = current;
+		}
+
+		return result;
+	}
+}
@@ -0,0 +1,279 @@
+package graph;
+
+import java.util.ArrayList;
+
+/**
+ * Graph whose neighbourhoods are stored as bitmasks, to test the connectivity of vertex subsets without allocating anything.
+ *
+ * The vertices are numbered from 1 to n and vertex i corresponds to bit i-1 of the masks.
+ * - if n <= 64, a subset is a long and the methods taking long arguments must be used;
+ * - otherwise, a subset is a long[] of {@code getWordCount()} words.
+ *
+ * The connectivity tests perform a bit-parallel breadth-first search: at each step, the neighbourhoods of all the vertices of the frontier are merged with a bitwise or.
+ *
+ * The long[] methods use internal buffers: an instance must not be shared between threads (see {@code copy()}).
+ */
+public class BitGraph {
+
+	/** Maximal number of vertices for which a subset can be represented by a long */
+	public static final int MAX_SMALL_VERTICES = 64;
+
+	/** Number of vertices */
+	int n;
+
+	/** Number of words of a subset */
+	int words;
+
+	/** Neighbourhood of each vertex (index i-1 for vertex i); used if n <= 64 */
+	long[] smallNeighbours;
+
+	/** Neighbourhood of each vertex (index i-1 for vertex i); used if n > 64 */
+	long[][] neighbours;
+
+	/** Buffers of the breadth-first search on long[] subsets */
+	long[] reached, frontier, next, complement;
+
+	/**
+	 * Create the graph from an edge list
+	 * @param n Number of vertices
+	 * @param adj List of edges, each edge being a list of its two extremities (between 1 and n)
+	 */
+	public BitGraph(int n, ArrayList<ArrayList<Integer>> adj) {
+
+		this.n = n;
+		this.words = Math.max(1, (n + 63) / 64);
+
+		if(isSmall())
+			smallNeighbours = new long[n];
+		else {
+			neighbours = new long[n][words];
+			reached = new long[words];
+			frontier = new long[words];
+			next = new long[words];
+			complement = new long[words];
+		}
+
+		for(ArrayList<Integer> edge: adj) {
+			int x1 = edge.get(0);
+			int x2 = edge.get(1);
+
+			if(x1 != x2 && x1 >= 1 && x1 <= n && x2 >= 1 && x2 <= n) {
+				if(isSmall()) {
+					smallNeighbours[x1 - 1] |= 1L << (x2 - 1);
+					smallNeighbours[x2 - 1] |= 1L << (x1 - 1);
+				}
+				else {
+					neighbours[x1 - 1][(x2 - 1) / 64] |= 1L << ((x2 - 1) % 64);
+					neighbours[x2 - 1][(x1 - 1) / 64] |= 1L << ((x1 - 1) % 64);
+				}
+			}
+		}
+	}
+
+	private BitGraph(BitGraph g) {
+		this.n = g.n;
+		this.words = g.words;
+		this.smallNeighbours = g.smallNeighbours;
+		this.neighbours = g.neighbours;
+
+		if(!isSmall()) {
+			reached = new long[words];
+			frontier = new long[words];
+			next = new long[words];
+			complement = new long[words];
+		}
+	}
+
+	/**
+	 * @return A graph which shares the neighbourhoods of this one but has its own search buffers (to be used in another thread)
+	 */
+	public BitGraph copy() {
+		return new BitGraph(this);
+	}
+
+	/**
+	 * @return True if the subsets must be represented by a long
+	 */
+	public boolean isSmall() {
+		return n <= MAX_SMALL_VERTICES;
+	}
+
+	public int getVertexCount() {
+		return n;
+	}
+
+	public int getWordCount() {
+		return words;
+	}
+
+	/**
+	 * @return The mask of all the vertices (n <= 64)
+	 */
+	public long allVertices() {
+		return n == 64 ? -1L : (1L << n) - 1;
+	}
+
+	/**
+	 * @param v A vertex between 1 and n
+	 * @return The neighbourhood of v (n <= 64)
+	 */
+	public long neighbours(int v) {
+		return smallNeighbours[v - 1];
+	}
+
+	/**
+	 * @param v A vertex between 1 and n
+	 * @return The neighbourhood of v (n > 64); must not be modified
+	 */
+	public long[] largeNeighbours(int v) {
+		return neighbours[v - 1];
+	}
+
+	/**
+	 * Test if the subgraph induced by a subset of vertices is connected (n <= 64)
+	 * @param S The subset
+	 * @return True if S is connected or empty
+	 */
+	public boolean isConnected(long S) {
+
+		if(S == 0)
+			return true;
+
+		long reached = S & -S;
+		long frontier = reached;
+
+		while(frontier != 0) {
+			long next = 0;
+
+			while(frontier != 0) {
+				next |= smallNeighbours[Long.numberOfTrailingZeros(frontier)];
+				frontier &= frontier - 1;
+			}
+
+			next &= S & ~reached;
+			reached |= next;
+			frontier = next;
+		}
+
+		return reached == S;
+	}
+
+	/**
+	 * @return True if the graph is connected
+	 */
+	public boolean isConnected() {
+
+		if(isSmall())
+			return isConnected(allVertices());
+
+		long[] all = new long[words];
+
+		for(int w = 0; w < words; w++)
+			all[w] = -1L;
+
+		if(n % 64 != 0)
+			all[words - 1] = (1L << (n % 64)) - 1;
+
+		return isConnected(all);
+	}
+
+	/**
+	 * Test if a subset and its complement are both connected (n <= 64)
+	 * @param S The subset
+	 * @return True if S and V\S induce connected subgraphs or if S or V\S is empty (the cut is then empty)
+	 */
+	public boolean isBond(long S) {
+		long complement = allVertices() & ~S;
+		return S == 0 || complement == 0 || isConnected(S) && isConnected(complement);
+	}
+
+	/**
+	 * Test if the subgraph induced by a subset of vertices is connected (any n)
+	 * @param S The subset
+	 * @return True if S is connected or empty
+	 */
+	public boolean isConnected(long[] S) {
+
+		/* A small graph has no search buffers: its subset is the first word */
+		if(isSmall())
+			return isConnected(S[0]);
+
+		int first = -1;
+
+		for(int w = 0; w < words; w++) {
+			reached[w] = 0;
+			frontier[w] = 0;
+
+			if(first == -1 && S[w] != 0)
+				first = w;
+		}
+
+		if(first == -1)
+			return true;
+
+		reached[first] = S[first] & -S[first];
+		frontier[first] = reached[first];
+		boolean isFrontierEmpty = false;
+
+		while(!isFrontierEmpty) {
+
+			for(int w = 0; w < words; w++)
+				next[w] = 0;
+
+			for(int w = 0; w < words; w++) {
+				long word = frontier[w];
+
+				while(word != 0) {
+					long[] nv = neighbours[w * 64 + Long.numberOfTrailingZeros(word)];
+
+					for(int w2 = 0; w2 < words; w2++)
+						next[w2] |= nv[w2];
+
+					word &= word - 1;
+				}
+			}
+
+			isFrontierEmpty = true;
+
+			for(int w = 0; w < words; w++) {
+				frontier[w] = next[w] & S[w] & ~reached[w];
+				reached[w] |= frontier[w];
+
+				if(frontier[w] != 0)
+					isFrontierEmpty = false;
+			}
+		}
+
+		for(int w = 0; w < words; w++)
+			if(reached[w] != S[w])
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * Test if a subset and its complement are both connected (any n)
+	 * @param S The subset
+	 * @return True if S and V\S induce connected subgraphs or if S or V\S is empty (the cut is then empty)
+	 */
+	public boolean isBond(long[] S) {
+
+		if(isSmall())
+			return isBond(S[0]);
+
+		boolean isSEmpty = true;
+		boolean isComplementEmpty = true;
+
+		for(int w = 0; w < words; w++) {
+			complement[w] = ~S[w];
+
+			if(w == words - 1 && n % 64 != 0)
+				complement[w] &= (1L << (n % 64)) - 1;
+
+			isSEmpty &= S[w] == 0;
+			isComplementEmpty &= complement[w] == 0;
+		}
+
+		return isSEmpty || isComplementEmpty || isConnected(S) && isConnected(complement);
+	}
+}
@@ -0,0 +1,152 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decomposition of the edges of a graph into blocks (2-connected components and bridges) with the algorithm of Hopcroft and Tarjan.
+ *
+ * The depth-first search is iterative so that long paths do not overflow the call stack.
+ * Parallel edges are handled (only the edge used to reach a vertex is ignored when going back to its parent) and loops are not included in any block.
+ */
+public class BlockDecomposition {
+
+	/** Number of vertices */
+	int n;
+
+	/** List of edges, each edge being a list of its two extremities (between 1 and n) */
+	ArrayList<ArrayList<Integer>> adj;
+
+	/** Indices in {@code adj} of the edges of each block */
+	List<int[]> blocks = new ArrayList<>();
+
+	/**
+	 * Compute the blocks of a graph
+	 * @param n Number of vertices
+	 * @param adj List of edges, each edge being a list of its two extremities (between 1 and n)
+	 */
+	public BlockDecomposition(int n, ArrayList<ArrayList<Integer>> adj) {
+		this.n = n;
+		this.adj = adj;
+		decompose();
+	}
+
+	/**
+	 * @return The indices in the edge list of the edges of each block
+	 */
+	public List<int[]> getBlocks() {
+		return blocks;
+	}
+
+	/**
+	 * @param e Index of an edge
+	 * @param v One of its extremities
+	 * @return The other extremity
+	 */
+	private int other(int e, int v) {
+		int x1 = adj.get(e).get(0);
+		return x1 == v ? adj.get(e).get(1) : x1;
+	}
+
+	private void decompose() {
+
+		/* Edges incident to each vertex */
+		int[] degree = new int[n + 1];
+
+		for(ArrayList<Integer> edge: adj)
+			if(!edge.get(0).equals(edge.get(1))) {
+				degree[edge.get(0)]++;
+				degree[edge.get(1)]++;
+			}
+
+		int[][] incident = new int[n + 1][];
+
+		for(int v = 1; v <= n; v++)
+			incident[v] = new int[degree[v]];
+
+		int[] filled = new int[n + 1];
+
+		for(int e = 0; e < adj.size(); e++) {
+			int x1 = adj.get(e).get(0);
+			int x2 = adj.get(e).get(1);
+
+			if(x1 != x2) {
+				incident[x1][filled[x1]++] = e;
+				incident[x2][filled[x2]++] = e;
+			}
+		}
+
+		/* Discovery time (0 if not visited), low point and edge used to reach each vertex */
+		int[] disc = new int[n + 1];
+		int[] low = new int[n + 1];
+		int[] parentEdge = new int[n + 1];
+
+		/* Index of the next incident edge to explore for each vertex */
+		int[] next = new int[n + 1];
+
+		int[] vertexStack = new int[n];
+		int[] edgeStack = new int[adj.size()];
+		int edgeStackSize = 0;
+		int time = 0;
+
+		for(int root = 1; root <= n; root++) {
+
+			if(disc[root] != 0 || degree[root] == 0)
+				continue;
+
+			int vertexStackSize = 0;
+			vertexStack[vertexStackSize++] = root;
+			disc[root] = low[root] = ++time;
+			parentEdge[root] = -1;
+
+			while(vertexStackSize > 0) {
+				int v = vertexStack[vertexStackSize - 1];
+
+				if(next[v] < incident[v].length) {
+					int e = incident[v][next[v]++];
+
+					if(e == parentEdge[v])
+						continue;
+
+					int w = other(e, v);
+
+					/* Tree edge */
+					if(disc[w] == 0) {
+						edgeStack[edgeStackSize++] = e;
+						parentEdge[w] = e;
+						disc[w] = low[w] = ++time;
+						vertexStack[vertexStackSize++] = w;
+					}
+
+					/* Back edge towards an ancestor (the edges towards descendants have already been considered from the descendant) */
+					else if(disc[w] < disc[v]) {
+						edgeStack[edgeStackSize++] = e;
+						low[v] = Math.min(low[v], disc[w]);
+					}
+				}
+				else {
+					vertexStackSize--;
+
+					if(parentEdge[v] != -1) {
+						int u = other(parentEdge[v], v);
+						low[u] = Math.min(low[u], low[v]);
+
+						/* u separates the subtree of v from the rest of the graph: the edges above (u, v) in the stack form a block */
+						if(low[v] >= disc[u]) {
+							int size = 0;
+
+							while(edgeStack[edgeStackSize - 1 - size] != parentEdge[v])
+								size++;
+							size++;
+
+							int[] block = new int[size];
+							System.arraycopy(edgeStack, edgeStackSize - size, block, 0, size);
+							edgeStackSize -= size;
+							blocks.add(block);
+						}
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,187 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Generate the connected simple graphs with a given number of vertices, one graph by isomorphism class, by canonical augmentation.
+ *
+ * Each graph with k + 1 vertices is obtained from a connected graph with k vertices by adding a vertex adjacent to a non-empty subset of its vertices.
+ * Among the vertices whose removal leaves the graph connected, the canonical deletion vertex is the one of minimal degree with the largest canonical label.
+ * A graph is kept only if the added vertex is in the orbit of its canonical deletion vertex, so that it is obtained from a single parent class;
+ * the isomorphic graphs obtained from the same parent are removed by comparing their canonical forms.
+ *
+ * The graphs are given to a consumer as soon as they are generated, they are never stored.
+ */
+public class GraphGenerator {
+
+	/**
+	 * Action performed on each graph generated
+	 */
+	public interface GraphConsumer {
+
+		/**
+		 * @param n Number of vertices
+		 * @param adj List of edges, each edge being a list of its two extremities (between 1 and n)
+		 */
+		void accept(int n, ArrayList<ArrayList<Integer>> adj);
+	}
+
+	/** Maximal number of vertices (the neighbourhoods are stored in a long) */
+	public static final int MAX_VERTICES = 63;
+
+	/** Number of vertices of the graphs generated */
+	int n;
+
+	/** Number of graphs generated */
+	long graphCount = 0;
+
+	/**
+	 * @param n Number of vertices of the graphs generated (between 1 and MAX_VERTICES)
+	 */
+	public GraphGenerator(int n) {
+
+		if(n < 1 || n > MAX_VERTICES)
+			throw new IllegalArgumentException("The number of vertices must be between 1 and " + MAX_VERTICES + " (" + n + ")");
+
+		this.n = n;
+	}
+
+	/**
+	 * Generate the graphs
+	 * @param consumer Action performed on each graph
+	 */
+	public void generate(GraphConsumer consumer) {
+
+		graphCount = 0;
+		long[] neighbours = new long[n];
+
+		if(n == 1) {
+			graphCount++;
+			consumer.accept(1, new ArrayList<>());
+		}
+		else
+			augment(neighbours, 1, consumer);
+	}
+
+	/**
+	 * @return Number of graphs given to the consumer by the last call to {@code generate}
+	 */
+	public long getGraphCount() {
+		return graphCount;
+	}
+
+	/**
+	 * Add a vertex to a connected graph in all the possible ways which give a graph not obtained from another parent
+	 * @param neighbours Neighbourhood of each vertex (bit v of entry u is set if u and v are adjacent, 0-indexed)
+	 * @param k Number of vertices of the parent graph
+	 * @param consumer Action performed on each graph with n vertices
+	 */
+	private void augment(long[] neighbours, int k, GraphConsumer consumer) {
+
+		/* Canonical forms of the children already kept */
+		HashSet<String> children = new HashSet<>();
+
+		for(long N = 1; N < 1L << k; N++) {
+
+			/* Add vertex k adjacent to the vertices of N */
+			neighbours[k] = N;
+			for(int u = 0; u < k; u++)
+				if((N & 1L << u) != 0)
+					neighbours[u] |= 1L << k;
+
+			ArrayList<ArrayList<Integer>> adj = edges(neighbours, k + 1);
+
+			if(isCanonicalAugmentation(neighbours, k + 1, adj, children)) {
+
+				if(k + 1 == n) {
+					graphCount++;
+					consumer.accept(n, adj);
+				}
+				else
+					augment(neighbours, k + 1, consumer);
+			}
+
+			/* Remove vertex k */
+			neighbours[k] = 0;
+			for(int u = 0; u < k; u++)
+				neighbours[u] &= ~(1L << k);
+		}
+	}
+
+	/**
+	 * Test if the last vertex of a graph is in the orbit of its canonical deletion vertex and if the graph is not isomorphic to a previous sibling
+	 * @param neighbours Neighbourhood of each vertex
+	 * @param size Number of vertices
+	 * @param adj List of edges
+	 * @param children Canonical forms of the previous siblings kept (the canonical form of the graph is added if it is kept)
+	 * @return True if the graph is kept
+	 */
+	private boolean isCanonicalAugmentation(long[] neighbours, int size, ArrayList<ArrayList<Integer>> adj, HashSet<String> children) {
+
+		int last = size - 1;
+		BitGraph graph = new BitGraph(size, adj);
+		long all = graph.allVertices();
+
+		/* Candidates: vertices of minimal degree whose removal leaves the graph connected */
+		int minDegree = Integer.MAX_VALUE;
+		List<Integer> candidates = new ArrayList<>();
+
+		for(int v = 0; v < size; v++) {
+			int degree = Long.bitCount(neighbours[v]);
+
+			if(degree <= minDegree && graph.isConnected(all & ~(1L << v))) {
+
+				if(degree < minDegree) {
+					minDegree = degree;
+					candidates.clear();
+				}
+
+				candidates.add(v);
+			}
+		}
+
+		/* Cheap test before computing the canonical labeling */
+		if(!candidates.contains(last))
+			return false;
+
+		Automorphisms automorphisms = new Automorphisms(size, adj);
+
+		if(candidates.size() > 1) {
+			int[] label = automorphisms.getCanonicalLabeling();
+			int[] orbit = automorphisms.getOrbits();
+			int deletion = candidates.get(0);
+
+			for(int v: candidates)
+				if(label[v + 1] > label[deletion + 1])
+					deletion = v;
+
+			if(orbit[deletion + 1] != orbit[last + 1])
+				return false;
+		}
+
+		return children.add(automorphisms.getCanonicalForm());
+	}
+
+	/**
+	 * @param neighbours Neighbourhood of each vertex
+	 * @param size Number of vertices
+	 * @return The list of edges of the graph (vertices numbered from 1)
+	 */
+	private static ArrayList<ArrayList<Integer>> edges(long[] neighbours, int size) {
+
+		ArrayList<ArrayList<Integer>> adj = new ArrayList<>();
+
+		for(int u = 0; u < size; u++)
+			for(int v = u + 1; v < size; v++)
+				if((neighbours[u] & 1L << v) != 0) {
+					ArrayList<Integer> edge = new ArrayList<>();
+					edge.add(u + 1);
+					edge.add(v + 1);
+					adj.add(edge);
+				}
+
+		return adj;
+	}
+}
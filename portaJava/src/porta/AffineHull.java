@@ -0,0 +1,199 @@
+package porta;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import formulation.Inequality;
+import formulation.POIReader;
+
+/**
+ * In-process replacement of the porta command dim: dimension and equations of the affine hull of points.
+ *
+ * An equation a.x = b is satisfied by the points p_1, ..., p_k iff the vector (b, a) is orthogonal to the rows (1, -p_i).
+ * A basis of the space of these vectors is updated after each point: if a vector l0 of the basis is not orthogonal to the new row h, the point is outside the current affine hull;
+ * l0 is then removed and each other vector l of the basis is replaced by (h.l0) l - (h.l) l0, which is orthogonal to h.
+ * All the computations are exact (integer vectors divided by the gcd of their entries, see {@code ExactVector}) so that no verification is needed.
+ *
+ * Example:
+ * AffineHull hull = new AffineHull(3);
+ * hull.addPoint(new long[] {1, 0, 0});
+ * hull.addPoint(new long[] {0, 1, 0});
+ * hull.getDimension(); // 1
+ * hull.getEquations(); // x1 + x2 == 1, x3 == 0
+ */
+public class AffineHull {
+
+	/** Number of variables */
+	int ambientDimension;
+
+	/** Basis of the equations: vector (b, a) of each equation a.x = b */
+	List<ExactVector> basis = new ArrayList<>();
+
+	long pointCount = 0;
+
+	/**
+	 * Create the affine hull of an empty set of points
+	 * @param ambientDimension Number of variables
+	 */
+	public AffineHull(int ambientDimension) {
+
+		this.ambientDimension = ambientDimension;
+
+		for(int i = 0; i <= ambientDimension; i++) {
+			long[] unit = new long[ambientDimension + 1];
+			unit[i] = 1;
+			basis.add(ExactVector.of(unit));
+		}
+	}
+
+	/**
+	 * @param poi The content of a .poi file
+	 * @return The affine hull of the points of the file (its rays are ignored)
+	 */
+	public static AffineHull of(POIReader poi) {
+
+		AffineHull hull = new AffineHull(poi.getDimension());
+
+		for(POIReader.Point p: poi.getPoints())
+			hull.addPoint(p.numerators, p.denominator);
+
+		return hull;
+	}
+
+	/**
+	 * Add a point
+	 * @param point Coordinates of the point ordered by porta index
+	 */
+	public void addPoint(int[] point) {
+
+		long[] p = new long[point.length];
+
+		for(int i = 0; i < point.length; i++)
+			p[i] = point[i];
+
+		addPoint(p, 1);
+	}
+
+	/**
+	 * Add a point
+	 * @param point Coordinates of the point ordered by porta index
+	 */
+	public void addPoint(long[] point) {
+		addPoint(point, 1);
+	}
+
+	/**
+	 * Add a point with rational coordinates
+	 * @param numerators Numerators of the coordinates ordered by porta index
+	 * @param denominator Common denominator of the coordinates (positive)
+	 */
+	public void addPoint(long[] numerators, long denominator) {
+
+		if(numerators.length != ambientDimension)
+			throw new IllegalArgumentException("The point has " + numerators.length + " coordinates instead of " + ambientDimension);
+
+		pointCount++;
+
+		/* b - a.(n / q) = 0 iff q b - a.n = 0 */
+		long[] row = new long[ambientDimension + 1];
+		row[0] = denominator;
+
+		for(int i = 0; i < ambientDimension; i++)
+			row[i + 1] = Math.negateExact(numerators[i]);
+
+		/* Most points are in the current affine hull: all the scalar products are then 0 */
+		int pivot = -1;
+		BigInteger pivotValue = null;
+
+		for(int i = 0; i < basis.size() && pivot == -1; i++) {
+			BigInteger value = basis.get(i).dot(row);
+
+			if(value.signum() != 0) {
+				pivot = i;
+				pivotValue = value;
+			}
+		}
+
+		if(pivot == -1)
+			return;
+
+		ExactVector l0 = basis.remove(pivot);
+
+		for(int i = 0; i < basis.size(); i++) {
+			ExactVector l = basis.get(i);
+			BigInteger value = l.dot(row);
+
+			if(value.signum() != 0)
+				basis.set(i, ExactVector.combine(pivotValue, l, value.negate(), l0));
+		}
+	}
+
+	/**
+	 * @return Number of variables
+	 */
+	public int getAmbientDimension() {
+		return ambientDimension;
+	}
+
+	/**
+	 * @return Dimension of the affine hull (-1 if there is no point)
+	 */
+	public int getDimension() {
+		return ambientDimension - basis.size();
+	}
+
+	public long getPointCount() {
+		return pointCount;
+	}
+
+	/**
+	 * @return True if the points are not included in a hyperplane
+	 */
+	public boolean isFullDimensional() {
+		return getDimension() == ambientDimension;
+	}
+
+	/**
+	 * Get the equations of the affine hull in reduced row echelon form
+	 * (each pivot variable is the variable of lowest index of its equation and only appears in its equation, with a positive coefficient)
+	 * @return The equations ("==") over the porta variables; the unsatisfiable equation 0 == 1 if there is no point
+	 * @throws ArithmeticException If a coefficient does not fit in a long
+	 */
+	public List<Inequality> getEquations() {
+
+		List<BigInteger[]> equations = new ArrayList<>();
+
+		for(ExactVector l: basis)
+			equations.add(l.toBig());
+
+		if(pointCount == 0) {
+			List<Inequality> result = new ArrayList<>();
+			result.add(new Inequality(new long[ambientDimension], Inequality.Sense.EQUAL, 1));
+			return result;
+		}
+
+		return DoubleDescription.canonicalize(ambientDimension, equations, new ArrayList<>());
+	}
+
+	/**
+	 * @return The dimension and the equations in a format close to the output of dim
+	 */
+	@Override
+	public String toString() {
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("DIMENSION OF THE INTEGER POLYHEDRON : ").append(getDimension()).append("\n");
+
+		List<Inequality> equations = getEquations();
+
+		if(!equations.isEmpty()) {
+			sb.append("\nINEQUALITIES_SECTION\n");
+
+			for(int i = 0; i < equations.size(); i++)
+				sb.append(String.format("(%3d) ", i + 1)).append(equations.get(i).toPortaString()).append("\n");
+		}
+
+		return sb.toString();
+	}
+}
@@ -0,0 +1,644 @@
+package porta;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import formulation.Inequality;
+
+/**
+ * Exact double description of the convex hull of integer points (the computation done by traf on a .poi file).
+ *
+ * An inequality a.x <= b is valid for the points p_1, ..., p_k iff the vector y = (b, a) is in the cone C = {y : b - a.p_i >= 0 for all i}.
+ * The facets of the convex hull correspond to the extreme rays of C and its equations to the lineality space of C.
+ * The cone C is computed incrementally: it is initially the whole space and each point adds a constraint to C (one step of the double description method).
+ *
+ * During a step on the constraint h, the rays r+ (h.r+ > 0) and r- (h.r- < 0) are combined into a new ray iff they are adjacent.
+ * The adjacency test is combinatorial: r+ and r- are adjacent iff no other ray satisfies with equality all the previous constraints satisfied with equality by both r+ and r-.
+ * The tests of a step are run in parallel.
+ *
+ * Points can be added after the description has been requested: only the rays violated by the new points are replaced
+ * and the reduced form of the other facets (see {@code getInequalities}) is kept as long as the affine hull does not change.
+ *
+ * All the computations are exact: the vectors are integer vectors stored in longs and, when an operation overflows, in BigIntegers (see {@code ExactVector}).
+ *
+ * Example:
+ * DoubleDescription dd = new DoubleDescription(3);
+ * dd.addPoint(new long[] {0, 0, 0});
+ * dd.addPoint(new long[] {1, 0, 0});
+ * ...
+ * List<Inequality> facets = dd.getInequalities();
+ */
+public class DoubleDescription {
+
+	/** Minimal number of pairs of rays to test before the tests of a step are run in parallel */
+	static final long PARALLEL_THRESHOLD = 1 << 12;
+
+	/** Number of variables */
+	int dimension;
+
+	/** Constraints taken into account: the row of point p is (1, -p) and the row of ray v is (0, -v) */
+	List<long[]> rows = new ArrayList<>();
+
+	/** Constraints added but not yet taken into account */
+	List<long[]> pendingRows = new ArrayList<>();
+
+	/** Basis of the lineality space of the cone (each vector has size dimension + 1) */
+	List<ExactVector> lineality = new ArrayList<>();
+
+	/** Extreme rays of the cone (modulo its lineality space) */
+	List<Ray> rays = new ArrayList<>();
+
+	/** Equations of {@code lineality} in reduced row echelon form; null if they must be recomputed */
+	List<BigInteger[]> echelon = null;
+
+	/** Pivot column of each equation of {@code echelon} */
+	List<Integer> pivots = new ArrayList<>();
+
+	/** True if the tests of the steps can be run in parallel */
+	boolean isParallel = true;
+
+	/**
+	 * An extreme ray and the set of the constraints it satisfies with equality
+	 */
+	static class Ray {
+
+		ExactVector vector;
+
+		/** Bit i is set iff the ray satisfies the i-th row with equality (the missing words are 0) */
+		long[] zeros;
+
+		/** Facet of the ray reduced by {@code echelon} (empty for the trivial inequality); null if it must be recomputed */
+		List<BigInteger> reduced = null;
+
+		Ray(ExactVector vector, long[] zeros) {
+			this.vector = vector;
+			this.zeros = zeros;
+		}
+	}
+
+	/**
+	 * Create the description of the convex hull of an empty set of points in dimension {@code dimension}
+	 * @param dimension Number of variables
+	 */
+	public DoubleDescription(int dimension) {
+
+		this.dimension = dimension;
+
+		/* Without any constraint, the cone is the whole space */
+		for(int i = 0; i <= dimension; i++) {
+			long[] unit = new long[dimension + 1];
+			unit[i] = 1;
+			lineality.add(ExactVector.of(unit));
+		}
+	}
+
+	/**
+	 * @param isParallel True if the adjacency tests can be run in parallel (default: true)
+	 */
+	public void setParallel(boolean isParallel) {
+		this.isParallel = isParallel;
+	}
+
+	public int getDimension() {
+		return dimension;
+	}
+
+	/**
+	 * @return Number of points and rays added so far
+	 */
+	public int getRowCount() {
+		return rows.size() + pendingRows.size();
+	}
+
+	/**
+	 * Add a point (the description is updated when it is next requested)
+	 * @param point Coordinates of the point ordered by porta index
+	 */
+	public void addPoint(int[] point) {
+
+		long[] p = new long[point.length];
+
+		for(int i = 0; i < point.length; i++)
+			p[i] = point[i];
+
+		addPoint(p);
+	}
+
+	/**
+	 * Add a point (the description is updated when it is next requested)
+	 * @param point Coordinates of the point ordered by porta index
+	 */
+	public void addPoint(long[] point) {
+		addPoint(point, 1);
+	}
+
+	/**
+	 * Add a point with rational coordinates (the description is updated when it is next requested)
+	 * @param numerators Numerators of the coordinates ordered by porta index
+	 * @param denominator Common denominator of the coordinates (positive)
+	 */
+	public void addPoint(long[] numerators, long denominator) {
+
+		if(numerators.length != dimension)
+			throw new IllegalArgumentException("The point has " + numerators.length + " coordinates instead of " + dimension);
+
+		if(denominator <= 0)
+			throw new IllegalArgumentException("The denominator of a point must be positive");
+
+		/* b - a.(n / q) >= 0 iff q b - a.n >= 0 */
+		long[] row = new long[dimension + 1];
+		row[0] = denominator;
+
+		for(int i = 0; i < dimension; i++)
+			row[i + 1] = Math.negateExact(numerators[i]);
+
+		addRow(row);
+	}
+
+	/**
+	 * Add a ray: the convex hull becomes unbounded in its direction (the description is updated when it is next requested)
+	 * @param direction Direction of the ray ordered by porta index
+	 */
+	public void addRay(long[] direction) {
+
+		if(direction.length != dimension)
+			throw new IllegalArgumentException("The ray has " + direction.length + " coordinates instead of " + dimension);
+
+		/* a.x <= b is valid in the direction v iff -a.v >= 0 */
+		long[] row = new long[dimension + 1];
+
+		for(int i = 0; i < dimension; i++)
+			row[i + 1] = Math.negateExact(direction[i]);
+
+		addRow(row);
+	}
+
+	private void addRow(long[] row) {
+		pendingRows.add(row);
+	}
+
+	/**
+	 * Take into account the points and rays added since the last update.
+	 * The number of intermediate rays strongly depends on the order of the constraints: they are taken into account in decreasing lexicographic order of the points
+	 * (the rays first), which keeps this number small on 0/1 polytopes.
+	 */
+	void update() {
+
+		if(pendingRows.isEmpty())
+			return;
+
+		List<long[]> batch = pendingRows;
+		pendingRows = new ArrayList<>();
+
+		batch.sort(Arrays::compare);
+
+		for(long[] row: batch)
+			step(row);
+	}
+
+	/**
+	 * Take one constraint into account (one step of the double description method)
+	 */
+	private void step(long[] row) {
+
+		int rowIndex = rows.size();
+		rows.add(row);
+
+		/* If the constraint is not satisfied with equality by the whole lineality space, the lineality space loses one dimension */
+		int pivot = -1;
+		BigInteger pivotValue = null;
+
+		for(int i = 0; i < lineality.size() && pivot == -1; i++) {
+			BigInteger value = lineality.get(i).dot(row);
+
+			if(value.signum() != 0) {
+				pivot = i;
+				pivotValue = value;
+			}
+		}
+
+		if(pivot != -1)
+			addLinealityStep(row, rowIndex, pivot, pivotValue);
+		else
+			addRayStep(row, rowIndex);
+	}
+
+	/**
+	 * Update the cone when the new constraint is not satisfied with equality by the lineality vector {@code pivot}:
+	 * the pivot becomes an extreme ray and the other vectors are projected on the hyperplane of the constraint
+	 */
+	private void addLinealityStep(long[] row, int rowIndex, int pivot, BigInteger pivotValue) {
+
+		ExactVector l0 = lineality.remove(pivot);
+
+		/* The equations change: all the facets must be reduced again */
+		echelon = null;
+
+		if(pivotValue.signum() < 0) {
+			l0 = l0.negate();
+			pivotValue = pivotValue.negate();
+		}
+
+		/* v is replaced by (h.l0) v - (h.v) l0 which satisfies h with equality (and the previous rows as v and l0 do) */
+		for(int i = 0; i < lineality.size(); i++) {
+			ExactVector v = lineality.get(i);
+			BigInteger value = v.dot(row);
+
+			if(value.signum() != 0)
+				lineality.set(i, ExactVector.combine(pivotValue, v, value.negate(), l0));
+		}
+
+		for(Ray r: rays) {
+			BigInteger value = r.vector.dot(row);
+
+			if(value.signum() != 0)
+				r.vector = ExactVector.combine(pivotValue, r.vector, value.negate(), l0);
+
+			r.zeros = withBit(r.zeros, rowIndex);
+			r.reduced = null;
+		}
+
+		/* The new ray satisfies all the previous rows with equality */
+		long[] zeros = new long[(rowIndex >>> 6) + 1];
+
+		for(int i = 0; i < rowIndex; i++)
+			zeros[i >>> 6] |= 1L << i;
+
+		rays.add(new Ray(l0, zeros));
+	}
+
+	/**
+	 * Update the cone when the new constraint is satisfied with equality by the lineality space:
+	 * the rays which violate the constraint are removed and replaced by their combinations with the adjacent rays which satisfy it strictly
+	 */
+	private void addRayStep(long[] row, int rowIndex) {
+
+		List<Integer> plus = new ArrayList<>();
+		List<Integer> minus = new ArrayList<>();
+		List<BigInteger> plusValues = new ArrayList<>();
+		List<BigInteger> minusValues = new ArrayList<>();
+		List<Ray> result = new ArrayList<>();
+
+		for(int k = 0; k < rays.size(); k++) {
+			Ray r = rays.get(k);
+			BigInteger value = r.vector.dot(row);
+
+			if(value.signum() > 0) {
+				plus.add(k);
+				plusValues.add(value);
+			}
+			else if(value.signum() < 0) {
+				minus.add(k);
+				minusValues.add(value);
+			}
+			else
+				result.add(r);
+		}
+
+		/* Nothing to do if the constraint is redundant */
+		if(minus.isEmpty()) {
+			for(Ray r: result)
+				r.zeros = withBit(r.zeros, rowIndex);
+
+			return;
+		}
+
+		/* The zero sets of the rays are copied in one array so that the adjacency tests read contiguous memory */
+		List<Ray> current = rays;
+		int words = (rowIndex >>> 6) + 1;
+		long[] zeroMatrix = new long[current.size() * words];
+
+		for(int k = 0; k < current.size(); k++) {
+			long[] zeros = current.get(k).zeros;
+			System.arraycopy(zeros, 0, zeroMatrix, k * words, Math.min(words, zeros.length));
+		}
+
+		/* Two adjacent rays satisfy with equality at least (dimension of the pointed cone - 2) common rows */
+		int minCommonZeros = dimension + 1 - lineality.size() - 2;
+
+		IntStream indices = IntStream.range(0, plus.size());
+
+		if(isParallel && (long) plus.size() * minus.size() >= PARALLEL_THRESHOLD)
+			indices = indices.parallel();
+
+		List<List<Ray>> newRays = indices.mapToObj(i -> {
+
+			List<Ray> combinations = new ArrayList<>();
+			int kp = plus.get(i);
+			long[] common = new long[words];
+
+			/* Last ray which proved that two rays are not adjacent: it is often a witness for the next pairs too */
+			int[] witness = {-1};
+
+			for(int j = 0; j < minus.size(); j++) {
+				int km = minus.get(j);
+				int commonCount = 0;
+
+				for(int w = 0; w < words; w++) {
+					common[w] = zeroMatrix[kp * words + w] & zeroMatrix[km * words + w];
+					commonCount += Long.bitCount(common[w]);
+				}
+
+				if(commonCount >= minCommonZeros && isAdjacent(kp, km, common, zeroMatrix, words, witness)) {
+
+					/* (h.r+) r- - (h.r-) r+ satisfies h with equality */
+					ExactVector v = ExactVector.combine(plusValues.get(i), current.get(km).vector, minusValues.get(j).negate(), current.get(kp).vector);
+					combinations.add(new Ray(v, withBit(common, rowIndex)));
+				}
+			}
+
+			return combinations;
+		}).collect(Collectors.toList());
+
+		for(Ray r: result)
+			r.zeros = withBit(r.zeros, rowIndex);
+
+		for(int k: plus)
+			result.add(current.get(k));
+
+		for(List<Ray> combinations: newRays)
+			result.addAll(combinations);
+
+		rays = result;
+	}
+
+	/**
+	 * @param k1 Index of a ray
+	 * @param k2 Index of a ray
+	 * @param common Rows satisfied with equality by both rays
+	 * @param zeroMatrix Zero sets of all the rays ({@code words} words by ray)
+	 * @param witness Index of the ray tested first (-1 if none); set to the ray which satisfies all the rows of {@code common} if any
+	 * @return True if no ray other than {@code k1} and {@code k2} satisfies with equality all the rows of {@code common}
+	 */
+	private static boolean isAdjacent(int k1, int k2, long[] common, long[] zeroMatrix, int words, int[] witness) {
+
+		if(witness[0] != -1 && witness[0] != k1 && witness[0] != k2 && isSubset(common, zeroMatrix, witness[0] * words, words))
+			return false;
+
+		int rayCount = zeroMatrix.length / words;
+
+		for(int k = 0; k < rayCount; k++)
+			if(k != k1 && k != k2 && isSubset(common, zeroMatrix, k * words, words)) {
+				witness[0] = k;
+				return false;
+			}
+
+		return true;
+	}
+
+	/**
+	 * @return True if all the rows of {@code common} are in the zero set which starts at {@code offset} in {@code zeroMatrix}
+	 */
+	private static boolean isSubset(long[] common, long[] zeroMatrix, int offset, int words) {
+
+		for(int w = 0; w < words; w++)
+			if((common[w] & ~zeroMatrix[offset + w]) != 0)
+				return false;
+
+		return true;
+	}
+
+	private static long[] withBit(long[] a, int bit) {
+
+		long[] result = Arrays.copyOf(a, Math.max(a.length, (bit >>> 6) + 1));
+		result[bit >>> 6] |= 1L << bit;
+
+		return result;
+	}
+
+	/**
+	 * @return Number of extreme rays of the cone, i.e., number of facets of the convex hull (before the reduction of {@code getInequalities})
+	 */
+	public int getRayCount() {
+		update();
+		return rays.size();
+	}
+
+	/**
+	 * @return Dimension of the convex hull of the points (-1 if there is no point)
+	 */
+	public int getHullDimension() {
+		update();
+		return dimension - lineality.size();
+	}
+
+	/**
+	 * Get the equations of the affine hull followed by the facets of the convex hull of the points.
+	 *
+	 * The result is canonical (two sets of points with the same convex hull give the same list):
+	 * - the equations are in reduced row echelon form (each pivot variable is the variable of lowest index of its equation and only appears in its equation, with a positive coefficient);
+	 * - the pivot variables do not appear in the facets;
+	 * - the coefficients of each equation and facet are relatively prime;
+	 * - the facets are sorted by right-hand side, then by number of non-zero coefficients, then by coefficients.
+	 * @return The equations ("==") and the facets ("<=") over the porta variables
+	 * @throws ArithmeticException If a coefficient does not fit in a long
+	 */
+	public List<Inequality> getInequalities() {
+
+		update();
+
+		if(echelon == null) {
+			List<BigInteger[]> equations = new ArrayList<>();
+
+			/* An equation l satisfies l[0] - l[1..d].p = 0 for all the points p */
+			for(ExactVector l: lineality)
+				equations.add(l.toBig());
+
+			pivots = new ArrayList<>();
+			echelon = echelon(dimension, equations, pivots);
+		}
+
+		/* A ray r satisfies r[0] - r[1..d].p >= 0 for all the points p; only the rays created since the last call are reduced */
+		Set<List<BigInteger>> reducedFacets = new LinkedHashSet<>();
+
+		for(Ray r: rays) {
+			if(r.reduced == null)
+				r.reduced = reduce(dimension, r.vector.toBig(), echelon, pivots);
+
+			if(!r.reduced.isEmpty())
+				reducedFacets.add(r.reduced);
+		}
+
+		return toInequalities(echelon, reducedFacets);
+	}
+
+	/**
+	 * Canonical representation of a description of a polyhedron (see {@code getInequalities})
+	 * @param dimension Number of variables
+	 * @param equations Equations (rhs, a) of the affine hull
+	 * @param facets Inequalities (rhs, a) of the facets
+	 * @return The equations followed by the inequalities
+	 */
+	static List<Inequality> canonicalize(int dimension, List<BigInteger[]> equations, List<BigInteger[]> facets) {
+
+		List<Integer> pivots = new ArrayList<>();
+		List<BigInteger[]> echelon = echelon(dimension, equations, pivots);
+		Set<List<BigInteger>> reducedFacets = new LinkedHashSet<>();
+
+		for(BigInteger[] f: facets) {
+			List<BigInteger> reduced = reduce(dimension, f, echelon, pivots);
+
+			if(!reduced.isEmpty())
+				reducedFacets.add(reduced);
+		}
+
+		return toInequalities(echelon, reducedFacets);
+	}
+
+	/**
+	 * Reduced row echelon form of equations (fraction free)
+	 * @param dimension Number of variables
+	 * @param equations Equations (rhs, a)
+	 * @param pivots Filled with the pivot column of each equation of the result
+	 * @return Independent equations which span the same space, with positive pivots and relatively prime coefficients
+	 */
+	private static List<BigInteger[]> echelon(int dimension, List<BigInteger[]> equations, List<Integer> pivots) {
+
+		List<BigInteger[]> echelon = new ArrayList<>();
+		List<BigInteger[]> remaining = new ArrayList<>(equations);
+
+		for(int column = 1; column <= dimension && !remaining.isEmpty(); column++) {
+
+			BigInteger[] pivotRow = null;
+
+			for(BigInteger[] e: remaining)
+				if(e[column].signum() != 0) {
+					pivotRow = e;
+					break;
+				}
+
+			if(pivotRow == null)
+				continue;
+
+			remaining.remove(pivotRow);
+
+			if(pivotRow[column].signum() < 0)
+				pivotRow = negate(pivotRow);
+
+			pivotRow = normalize(pivotRow);
+
+			for(int i = 0; i < remaining.size(); i++)
+				remaining.set(i, eliminate(remaining.get(i), pivotRow, column));
+
+			for(int i = 0; i < echelon.size(); i++)
+				echelon.set(i, eliminate(echelon.get(i), pivotRow, column));
+
+			echelon.add(pivotRow);
+			pivots.add(column);
+		}
+
+		return echelon;
+	}
+
+	/**
+	 * Remove the pivot variables of the equations from a facet
+	 * @return The reduced facet (rhs, a) with relatively prime coefficients; an empty list if it is the trivial inequality 0 <= b
+	 */
+	private static List<BigInteger> reduce(int dimension, BigInteger[] f, List<BigInteger[]> echelon, List<Integer> pivots) {
+
+		for(int i = 0; i < echelon.size(); i++)
+			f = eliminate(f, echelon.get(i), pivots.get(i));
+
+		f = normalize(f);
+
+		for(int i = 1; i <= dimension; i++)
+			if(f[i].signum() != 0)
+				return Arrays.asList(f);
+
+		return Collections.emptyList();
+	}
+
+	/**
+	 * @return The equations followed by the facets sorted by {@code FACET_ORDER}
+	 */
+	private static List<Inequality> toInequalities(List<BigInteger[]> echelon, Set<List<BigInteger>> reducedFacets) {
+
+		List<Inequality> result = new ArrayList<>();
+
+		for(BigInteger[] e: echelon)
+			result.add(toInequality(e, Inequality.Sense.EQUAL));
+
+		List<Inequality> sortedFacets = new ArrayList<>();
+
+		for(List<BigInteger> f: reducedFacets)
+			sortedFacets.add(toInequality(f.toArray(new BigInteger[0]), Inequality.Sense.LESS_OR_EQUAL));
+
+		sortedFacets.sort(FACET_ORDER);
+		result.addAll(sortedFacets);
+
+		return result;
+	}
+
+	/** Order of the facets: by rhs, then by number of non-zero coefficients, then by coefficients */
+	static final Comparator<Inequality> FACET_ORDER = Comparator.<Inequality>comparingLong(f -> f.rhs)
+			.thenComparingLong(f -> Arrays.stream(f.coefficients).filter(c -> c != 0).count())
+			.thenComparing((f1, f2) -> Arrays.compare(f1.coefficients, f2.coefficients));
+
+	/**
+	 * @return p * v - v[column] * pivotRow (with p the coefficient of pivotRow in column, which is positive) divided by the gcd of its entries
+	 */
+	private static BigInteger[] eliminate(BigInteger[] v, BigInteger[] pivotRow, int column) {
+
+		if(v[column].signum() == 0)
+			return v;
+
+		BigInteger p = pivotRow[column];
+		BigInteger c = v[column];
+		BigInteger[] result = new BigInteger[v.length];
+
+		for(int i = 0; i < v.length; i++)
+			result[i] = p.multiply(v[i]).subtract(c.multiply(pivotRow[i]));
+
+		return normalize(result);
+	}
+
+	private static BigInteger[] normalize(BigInteger[] v) {
+
+		BigInteger gcd = BigInteger.ZERO;
+
+		for(BigInteger x: v)
+			gcd = gcd.gcd(x);
+
+		if(gcd.signum() == 0 || gcd.equals(BigInteger.ONE))
+			return v;
+
+		BigInteger[] result = new BigInteger[v.length];
+
+		for(int i = 0; i < v.length; i++)
+			result[i] = v[i].divide(gcd);
+
+		return result;
+	}
+
+	private static BigInteger[] negate(BigInteger[] v) {
+
+		BigInteger[] result = new BigInteger[v.length];
+
+		for(int i = 0; i < v.length; i++)
+			result[i] = v[i].negate();
+
+		return result;
+	}
+
+	/**
+	 * @param v Vector (rhs, a)
+	 * @return The inequality a.x (sense) rhs
+	 */
+	private static Inequality toInequality(BigInteger[] v, Inequality.Sense sense) {
+
+		long[] coefficients = new long[v.length - 1];
+
+		for(int i = 1; i < v.length; i++)
+			coefficients[i - 1] = v[i].longValueExact();
+
+		return new Inequality(coefficients, sense, v[0].longValueExact());
+	}
+}
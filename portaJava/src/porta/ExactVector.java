@@ -0,0 +1,243 @@
+package porta;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Immutable integer vector used by the exact polyhedral computations.
+ *
+ * The entries are stored in a long[] as long as they fit; an operation whose result overflows is done again with BigInteger and gives a vector stored in a BigInteger[].
+ * The vectors are always divided by the gcd of their entries so that they stay as small as possible.
+ */
+final class ExactVector {
+
+	/** Entries when they all fit in a long; null otherwise */
+	final long[] small;
+
+	/** Entries when one of them does not fit in a long; null otherwise */
+	final BigInteger[] big;
+
+	private ExactVector(long[] small, BigInteger[] big) {
+		this.small = small;
+		this.big = big;
+	}
+
+	static ExactVector of(long[] entries) {
+		return new ExactVector(entries, null);
+	}
+
+	private static ExactVector of(BigInteger[] entries) {
+
+		/* Back to the long representation if possible */
+		long[] small = new long[entries.length];
+
+		for(int i = 0; i < entries.length; i++) {
+			if(entries[i].bitLength() > 63)
+				return new ExactVector(null, entries);
+
+			small[i] = entries[i].longValue();
+		}
+
+		return new ExactVector(small, null);
+	}
+
+	int size() {
+		return small != null ? small.length : big.length;
+	}
+
+	BigInteger get(int i) {
+		return small != null ? BigInteger.valueOf(small[i]) : big[i];
+	}
+
+	boolean isZero() {
+
+		for(int i = 0; i < size(); i++)
+			if(small != null ? small[i] != 0 : big[i].signum() != 0)
+				return false;
+
+		return true;
+	}
+
+	BigInteger[] toBig() {
+
+		if(big != null)
+			return big;
+
+		BigInteger[] result = new BigInteger[small.length];
+
+		for(int i = 0; i < small.length; i++)
+			result[i] = BigInteger.valueOf(small[i]);
+
+		return result;
+	}
+
+	/**
+	 * @param row A row with small entries
+	 * @return The scalar product of the row and this vector
+	 */
+	BigInteger dot(long[] row) {
+
+		if(small != null)
+			try {
+				long result = 0;
+
+				for(int i = 0; i < row.length; i++)
+					if(row[i] != 0)
+						result = Math.addExact(result, Math.multiplyExact(row[i], small[i]));
+
+				return BigInteger.valueOf(result);
+			} catch(ArithmeticException e) {
+				/* Computed again with BigInteger */
+			}
+
+		BigInteger[] entries = toBig();
+		BigInteger result = BigInteger.ZERO;
+
+		for(int i = 0; i < row.length; i++)
+			if(row[i] != 0)
+				result = result.add(entries[i].multiply(BigInteger.valueOf(row[i])));
+
+		return result;
+	}
+
+	ExactVector negate() {
+
+		if(small != null)
+			try {
+				long[] result = new long[small.length];
+
+				for(int i = 0; i < small.length; i++)
+					result[i] = Math.negateExact(small[i]);
+
+				return of(result);
+			} catch(ArithmeticException e) {
+				/* Computed again with BigInteger */
+			}
+
+		BigInteger[] entries = toBig();
+		BigInteger[] result = new BigInteger[entries.length];
+
+		for(int i = 0; i < entries.length; i++)
+			result[i] = entries[i].negate();
+
+		return of(result);
+	}
+
+	/**
+	 * @return alpha * u + beta * v divided by the gcd of its entries
+	 */
+	static ExactVector combine(BigInteger alpha, ExactVector u, BigInteger beta, ExactVector v) {
+
+		if(u.small != null && v.small != null && alpha.bitLength() < 64 && beta.bitLength() < 64)
+			try {
+				long a = alpha.longValue();
+				long b = beta.longValue();
+				long[] result = new long[u.small.length];
+
+				for(int i = 0; i < result.length; i++)
+					result[i] = Math.addExact(Math.multiplyExact(a, u.small[i]), Math.multiplyExact(b, v.small[i]));
+
+				return of(result).normalize();
+			} catch(ArithmeticException e) {
+				/* Computed again with BigInteger */
+			}
+
+		BigInteger[] bu = u.toBig();
+		BigInteger[] bv = v.toBig();
+		BigInteger[] result = new BigInteger[bu.length];
+
+		for(int i = 0; i < result.length; i++)
+			result[i] = alpha.multiply(bu[i]).add(beta.multiply(bv[i]));
+
+		return of(result).normalize();
+	}
+
+	/**
+	 * @return This vector divided by the gcd of its entries (positive, so that the sign of each entry is kept)
+	 */
+	ExactVector normalize() {
+
+		if(small != null) {
+			long gcd = 0;
+
+			for(long x: small) {
+				gcd = gcd(gcd, Math.abs(x));
+
+				if(gcd == 1)
+					return this;
+			}
+
+			if(gcd == 0)
+				return this;
+
+			/* |Long.MIN_VALUE| does not fit in a long: the gcd is computed with BigInteger */
+			if(gcd < 0)
+				return normalize(toBig());
+
+			long[] result = new long[small.length];
+
+			for(int i = 0; i < small.length; i++)
+				result[i] = small[i] / gcd;
+
+			return of(result);
+		}
+
+		return normalize(big);
+	}
+
+	/**
+	 * @return The vector of the entries divided by the gcd of the entries
+	 */
+	private static ExactVector normalize(BigInteger[] entries) {
+
+		BigInteger gcd = BigInteger.ZERO;
+
+		for(BigInteger x: entries)
+			gcd = gcd.gcd(x);
+
+		if(gcd.signum() == 0 || gcd.equals(BigInteger.ONE))
+			return of(entries);
+
+		BigInteger[] result = new BigInteger[entries.length];
+
+		for(int i = 0; i < entries.length; i++)
+			result[i] = entries[i].divide(gcd);
+
+		return of(result);
+	}
+
+	private static long gcd(long a, long b) {
+
+		while(b != 0) {
+			long t = a % b;
+			a = b;
+			b = t;
+		}
+
+		return Math.abs(a);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+
+		if(!(o instanceof ExactVector))
+			return false;
+
+		ExactVector other = (ExactVector) o;
+
+		if(small != null && other.small != null)
+			return Arrays.equals(small, other.small);
+
+		return Arrays.equals(toBig(), other.toBig());
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(toBig());
+	}
+
+	@Override
+	public String toString() {
+		return small != null ? Arrays.toString(small) : Arrays.toString(big);
+	}
+}
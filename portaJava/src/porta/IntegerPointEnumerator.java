@@ -0,0 +1,584 @@
+package porta;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+import formulation.Inequality;
+
+/**
+ * In-process replacement of the porta command vint: enumerate the integer points which satisfy linear constraints and bounds on the variables.
+ *
+ * The points are enumerated by branch-and-bound: the variables are fixed one by one in porta order and, after each fixing, the bounds of the other variables are tightened with the constraints
+ * (bound propagation). A subtree is pruned as soon as a constraint cannot be satisfied, so that the bounding box is never enumerated.
+ *
+ * The points are given to the consumer in lexicographic order. In parallel mode, the first levels of the tree are expanded into subtrees which are solved by the tasks of a fork/join pool;
+ * the subtrees are processed by windows and the points of a window are given to the consumer in order, so that the result does not depend on the number of threads.
+ * The points of a whole window (parallelism * TASKS_BY_THREAD subtrees) are thus held in memory until they are given to the consumer: the sequential mode should be used when a subtree may contain too many points.
+ *
+ * Example:
+ * IntegerPointEnumerator e = new IntegerPointEnumerator(new long[] {0, 0}, new long[] {8, 8}, constraints);
+ * long count = e.enumerate(p -> System.out.println(Arrays.toString(p)));
+ */
+public class IntegerPointEnumerator {
+
+	/** Number of subtrees solved by thread in each window in parallel mode */
+	static final int TASKS_BY_THREAD = 16;
+
+	/** Number of variables */
+	int dimension;
+
+	long[] lowerBounds;
+	long[] upperBounds;
+
+	/** Constraints a.x <= b (an equation is represented by two constraints): variables, coefficients and right-hand side of each constraint */
+	int[][] constraintVariables;
+	long[][] constraintCoefficients;
+	long[] constraintRhs;
+
+	/** Constraints in which each variable appears and coefficient of the variable in each of them (null until the constraints are indexed by {@code enumerate}) */
+	int[][] variableConstraints;
+	long[][] variableCoefficients;
+
+	/** Largest range of a term of each constraint within the initial bounds: a constraint whose slack is larger cannot tighten any bound */
+	long[] constraintMaxRange;
+
+	/** Constraints added by {@code addConstraint} */
+	List<int[]> addedVariables = new ArrayList<>();
+	List<long[]> addedCoefficients = new ArrayList<>();
+	List<Long> addedRhs = new ArrayList<>();
+
+	int parallelism = 1;
+
+	/**
+	 * Create an enumerator without constraints; the constraints are then given one by one to {@code addConstraint} (e.g., as they are generated by a formulation)
+	 * @param lowerBounds Lower bound of each variable ordered by porta index
+	 * @param upperBounds Upper bound of each variable ordered by porta index
+	 */
+	public IntegerPointEnumerator(long[] lowerBounds, long[] upperBounds) {
+
+		this.dimension = lowerBounds.length;
+		this.lowerBounds = lowerBounds.clone();
+		this.upperBounds = upperBounds.clone();
+	}
+
+	/**
+	 * @param lowerBounds Lower bound of each variable ordered by porta index
+	 * @param upperBounds Upper bound of each variable ordered by porta index
+	 * @param constraints Inequalities and equations over the porta variables
+	 */
+	public IntegerPointEnumerator(long[] lowerBounds, long[] upperBounds, List<Inequality> constraints) {
+
+		this(lowerBounds, upperBounds);
+
+		for(Inequality c: constraints)
+			addConstraint(c);
+	}
+
+	/**
+	 * Add a constraint (only its non-zero coefficients are stored, the inequality can then be discarded)
+	 * @param c Inequality or equation over the porta variables
+	 */
+	public void addConstraint(Inequality c) {
+
+		if(c.sense != Inequality.Sense.GREATER_OR_EQUAL)
+			addConstraint(c.coefficients, 1, c.rhs, addedVariables, addedCoefficients, addedRhs);
+
+		if(c.sense != Inequality.Sense.LESS_OR_EQUAL)
+			addConstraint(c.coefficients, -1, c.rhs, addedVariables, addedCoefficients, addedRhs);
+
+		variableConstraints = null;
+	}
+
+	/**
+	 * Build the arrays of the constraints and index them by variable
+	 */
+	private void indexConstraints() {
+
+		constraintVariables = addedVariables.toArray(new int[0][]);
+		constraintCoefficients = addedCoefficients.toArray(new long[0][]);
+		constraintRhs = new long[addedRhs.size()];
+
+		for(int c = 0; c < constraintRhs.length; c++)
+			constraintRhs[c] = addedRhs.get(c);
+
+		/* Index the constraints by variable */
+		int[] count = new int[dimension];
+
+		for(int[] vars: constraintVariables)
+			for(int v: vars)
+				count[v]++;
+
+		variableConstraints = new int[dimension][];
+		variableCoefficients = new long[dimension][];
+
+		for(int v = 0; v < dimension; v++) {
+			variableConstraints[v] = new int[count[v]];
+			variableCoefficients[v] = new long[count[v]];
+		}
+
+		Arrays.fill(count, 0);
+		constraintMaxRange = new long[constraintRhs.length];
+
+		for(int c = 0; c < constraintVariables.length; c++)
+			for(int i = 0; i < constraintVariables[c].length; i++) {
+				int v = constraintVariables[c][i];
+				variableConstraints[v][count[v]] = c;
+				variableCoefficients[v][count[v]] = constraintCoefficients[c][i];
+				count[v]++;
+
+				constraintMaxRange[c] = Math.max(constraintMaxRange[c], Math.abs(constraintCoefficients[c][i]) * (upperBounds[v] - lowerBounds[v]));
+			}
+	}
+
+	/**
+	 * Add the constraint sign * a.x <= sign * b (only its non-zero coefficients are stored)
+	 */
+	private static void addConstraint(long[] a, long sign, long b, List<int[]> variables, List<long[]> coefficients, List<Long> rhs) {
+
+		int size = 0;
+
+		for(long x: a)
+			if(x != 0)
+				size++;
+
+		int[] vars = new int[size];
+		long[] coefs = new long[size];
+		size = 0;
+
+		for(int v = 0; v < a.length; v++)
+			if(a[v] != 0) {
+				vars[size] = v;
+				coefs[size] = sign * a[v];
+				size++;
+			}
+
+		variables.add(vars);
+		coefficients.add(coefs);
+		rhs.add(sign * b);
+	}
+
+	/**
+	 * @param parallelism Number of threads used to solve the subtrees (1 for a sequential enumeration)
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Enumerate the integer points
+	 * @param consumer Action performed on each point (always called from the current thread, in lexicographic order; the array is not reused)
+	 * @return The number of points (0 if the bounds of a variable contain no integer)
+	 */
+	public long enumerate(Consumer<int[]> consumer) {
+
+		for(int v = 0; v < dimension; v++)
+			if(lowerBounds[v] > upperBounds[v])
+				return 0;
+
+		if(variableConstraints == null)
+			indexConstraints();
+
+		Search search = new Search(lowerBounds, upperBounds);
+
+		if(!search.propagateAll())
+			return 0;
+
+		if(parallelism == 1)
+			return search.solve(0, consumer);
+
+		return enumerateInParallel(search, consumer);
+	}
+
+	/**
+	 * Expand the first levels of the tree until there are enough subtrees for all the threads, then solve the subtrees window by window
+	 * @param root Search whose bounds are propagated
+	 */
+	private long enumerateInParallel(Search root, Consumer<int[]> consumer) {
+
+		int windowSize = parallelism * TASKS_BY_THREAD;
+		List<long[][]> subtrees = new ArrayList<>();
+		subtrees.add(root.getBounds());
+
+		boolean isExpanded = true;
+
+		while(subtrees.size() < windowSize && isExpanded) {
+
+			List<long[][]> next = new ArrayList<>();
+			isExpanded = false;
+
+			/* The children replace their parent so that the order of the subtrees stays lexicographic */
+			for(long[][] bounds: subtrees) {
+				Search search = new Search(bounds[0], bounds[1]);
+				int v = search.branchingVariable(0);
+
+				if(v == -1)
+					next.add(bounds);
+				else {
+					isExpanded = true;
+
+					for(long value = bounds[0][v]; value <= bounds[1][v]; value++) {
+						int mark = search.mark();
+
+						if(search.fix(v, value))
+							next.add(search.getBounds());
+
+						search.undo(mark);
+					}
+				}
+			}
+
+			subtrees = next;
+		}
+
+		long count = 0;
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+		try {
+			for(int first = 0; first < subtrees.size(); first += windowSize) {
+
+				List<SubtreeTask> tasks = new ArrayList<>();
+
+				for(long[][] bounds: subtrees.subList(first, Math.min(subtrees.size(), first + windowSize))) {
+					SubtreeTask task = new SubtreeTask(bounds);
+					tasks.add(task);
+					pool.execute(task);
+				}
+
+				for(SubtreeTask task: tasks)
+					for(int[] point: task.join()) {
+						consumer.accept(point);
+						count++;
+					}
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+
+		return count;
+	}
+
+	/**
+	 * Task which solves a subtree and stores its points
+	 */
+	@SuppressWarnings("serial")
+	private class SubtreeTask extends RecursiveTask<List<int[]>> {
+
+		/** Lower and upper bounds of the variables at the root of the subtree (already propagated) */
+		long[][] bounds;
+
+		SubtreeTask(long[][] bounds) {
+			this.bounds = bounds;
+		}
+
+		@Override
+		protected List<int[]> compute() {
+			List<int[]> points = new ArrayList<>();
+			new Search(bounds[0], bounds[1]).solve(0, points::add);
+			return points;
+		}
+	}
+
+	/**
+	 * State of a depth-first search: the current bounds of the variables and the minimal activity of each constraint within these bounds.
+	 * Each change of a bound is recorded in a trail so that the state of a node is restored by undoing the changes made in its subtree.
+	 */
+	private class Search {
+
+		long[] lower;
+		long[] upper;
+
+		/** Minimal value of a.x within the bounds for each constraint a.x <= b */
+		long[] minActivity;
+
+		/** Changes of the bounds: variable (negative for an upper bound: -v-1) and previous value */
+		int[] trailVariables = new int[64];
+		long[] trailValues = new long[64];
+		int trailSize = 0;
+
+		/** Constraints to check */
+		Queue queue = new Queue();
+
+		Search(long[] lower, long[] upper) {
+
+			this.lower = lower.clone();
+			this.upper = upper.clone();
+
+			minActivity = new long[constraintRhs.length];
+
+			for(int c = 0; c < constraintRhs.length; c++)
+				for(int i = 0; i < constraintVariables[c].length; i++) {
+					long a = constraintCoefficients[c][i];
+					int v = constraintVariables[c][i];
+					minActivity[c] += a > 0 ? a * this.lower[v] : a * this.upper[v];
+				}
+		}
+
+		/**
+		 * @param from Index of a variable such that all the previous variables are fixed
+		 * @return The first variable which is not fixed; -1 if all the variables are fixed
+		 */
+		int branchingVariable(int from) {
+
+			for(int v = from; v < dimension; v++)
+				if(lower[v] < upper[v])
+					return v;
+
+			return -1;
+		}
+
+		/**
+		 * Enumerate the points of the current node (the state is restored at the end)
+		 * @param from Index of a variable such that all the previous variables are fixed
+		 * @return The number of points
+		 */
+		long solve(int from, Consumer<int[]> consumer) {
+
+			int v = branchingVariable(from);
+
+			if(v == -1) {
+				consumer.accept(toPoint());
+				return 1;
+			}
+
+			long count = 0;
+			long max = upper[v];
+
+			for(long value = lower[v]; value <= max; value++) {
+				int mark = mark();
+
+				if(fix(v, value))
+					count += solve(v + 1, consumer);
+
+				undo(mark);
+			}
+
+			return count;
+		}
+
+		/**
+		 * Fix a variable and propagate
+		 * @return False if a constraint cannot be satisfied anymore (the state must then be restored with {@code undo})
+		 */
+		boolean fix(int v, long value) {
+
+			if(value > lower[v])
+				setLower(v, value);
+
+			if(value < upper[v])
+				setUpper(v, value);
+
+			return propagate();
+		}
+
+		/**
+		 * Check all the constraints
+		 */
+		boolean propagateAll() {
+
+			for(int c = 0; c < constraintRhs.length; c++)
+				queue.add(c);
+
+			return propagate();
+		}
+
+		/**
+		 * Tighten the bounds of the variables until the constraints of the queue cannot tighten them anymore
+		 * @return False if a constraint cannot be satisfied within the bounds
+		 */
+		private boolean propagate() {
+
+			while(!queue.isEmpty()) {
+
+				int c = queue.poll();
+				long slack = constraintRhs[c] - minActivity[c];
+
+				if(slack < 0) {
+					queue.clear();
+					return false;
+				}
+
+				/* No bound can be tightened if the slack exceeds the range of each term */
+				if(slack >= constraintMaxRange[c])
+					continue;
+
+				int[] vars = constraintVariables[c];
+				long[] coefs = constraintCoefficients[c];
+
+				for(int i = 0; i < vars.length; i++) {
+					int v = vars[i];
+					long a = coefs[i];
+
+					/* a x_v <= b - (minimal value of the other terms) */
+					long termSlack = constraintRhs[c] - minActivity[c] + (a > 0 ? a * lower[v] : a * upper[v]);
+
+					if(a > 0) {
+						long bound = Math.floorDiv(termSlack, a);
+
+						if(bound < upper[v])
+							setUpper(v, bound);
+					}
+					else {
+						long bound = -Math.floorDiv(termSlack, -a);
+
+						if(bound > lower[v])
+							setLower(v, bound);
+					}
+
+					if(lower[v] > upper[v]) {
+						queue.clear();
+						return false;
+					}
+				}
+			}
+
+			return true;
+		}
+
+		private void setLower(int v, long value) {
+
+			record(v, lower[v]);
+
+			long[] coefs = variableCoefficients[v];
+			int[] constraints = variableConstraints[v];
+
+			for(int k = 0; k < constraints.length; k++)
+				if(coefs[k] > 0) {
+					minActivity[constraints[k]] += coefs[k] * (value - lower[v]);
+					queue.add(constraints[k]);
+				}
+
+			lower[v] = value;
+		}
+
+		private void setUpper(int v, long value) {
+
+			record(-v - 1, upper[v]);
+
+			long[] coefs = variableCoefficients[v];
+			int[] constraints = variableConstraints[v];
+
+			for(int k = 0; k < constraints.length; k++)
+				if(coefs[k] < 0) {
+					minActivity[constraints[k]] += coefs[k] * (value - upper[v]);
+					queue.add(constraints[k]);
+				}
+
+			upper[v] = value;
+		}
+
+		private void record(int variable, long previousValue) {
+
+			if(trailSize == trailVariables.length) {
+				trailVariables = Arrays.copyOf(trailVariables, 2 * trailSize);
+				trailValues = Arrays.copyOf(trailValues, 2 * trailSize);
+			}
+
+			trailVariables[trailSize] = variable;
+			trailValues[trailSize] = previousValue;
+			trailSize++;
+		}
+
+		int mark() {
+			return trailSize;
+		}
+
+		/**
+		 * Restore the bounds (and the activities) recorded since a mark
+		 */
+		void undo(int mark) {
+
+			while(trailSize > mark) {
+				trailSize--;
+				int variable = trailVariables[trailSize];
+				long value = trailValues[trailSize];
+
+				if(variable >= 0) {
+					long[] coefs = variableCoefficients[variable];
+					int[] constraints = variableConstraints[variable];
+
+					for(int k = 0; k < constraints.length; k++)
+						if(coefs[k] > 0)
+							minActivity[constraints[k]] += coefs[k] * (value - lower[variable]);
+
+					lower[variable] = value;
+				}
+				else {
+					int v = -variable - 1;
+					long[] coefs = variableCoefficients[v];
+					int[] constraints = variableConstraints[v];
+
+					for(int k = 0; k < constraints.length; k++)
+						if(coefs[k] < 0)
+							minActivity[constraints[k]] += coefs[k] * (value - upper[v]);
+
+					upper[v] = value;
+				}
+			}
+		}
+
+		/**
+		 * @return Copies of the current lower and upper bounds
+		 */
+		long[][] getBounds() {
+			return new long[][] {lower.clone(), upper.clone()};
+		}
+
+		int[] toPoint() {
+
+			int[] point = new int[dimension];
+
+			for(int v = 0; v < dimension; v++)
+				point[v] = Math.toIntExact(lower[v]);
+
+			return point;
+		}
+	}
+
+	/**
+	 * Circular queue of constraints in which each constraint appears at most once (allocated once by search as the number of constraints can be large)
+	 */
+	private class Queue {
+
+		int[] constraints = new int[constraintRhs.length];
+		boolean[] isQueued = new boolean[constraintRhs.length];
+		int head = 0;
+		int size = 0;
+
+		void add(int c) {
+
+			if(!isQueued[c]) {
+				constraints[(head + size) % constraints.length] = c;
+				isQueued[c] = true;
+				size++;
+			}
+		}
+
+		int poll() {
+
+			int c = constraints[head];
+			head = (head + 1) % constraints.length;
+			size--;
+			isQueued[c] = false;
+
+			return c;
+		}
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+
+		void clear() {
+			while(size > 0)
+				poll();
+		}
+	}
+}
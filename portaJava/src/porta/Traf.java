@@ -0,0 +1,129 @@
+package porta;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import exception.InvalidIEQFileFormatException;
+import exception.InvalidPOIFileFormatException;
+import formulation.Inequality;
+import formulation.POIReader;
+
+/**
+ * In-process replacement of the porta command traf on .poi files: the facets of the convex hull of the points are computed with {@code DoubleDescription}.
+ *
+ * The inequalities are in the canonical form of {@code DoubleDescription.getInequalities}, which may differ from the output of traf by the order of the inequalities
+ * and, when the points are not full dimensional, by the equations added to the facets. Use {@code isSameDescription} to compare them.
+ *
+ * Usage: java porta.Traf file.poi [reference.ieq]
+ * The facets are written in file.poi.ieq; if a reference (e.g., the output of traf) is given, both descriptions are compared.
+ */
+public class Traf {
+
+	/**
+	 * Compute the facets of the convex hull of the points and rays of a .poi file
+	 * @param poi The content of the file
+	 * @return The equations of the affine hull followed by the facets
+	 */
+	public static List<Inequality> computeFacets(POIReader poi) {
+
+		DoubleDescription dd = new DoubleDescription(poi.getDimension());
+
+		for(POIReader.Point p: poi.getPoints())
+			dd.addPoint(p.numerators, p.denominator);
+
+		for(POIReader.Point r: poi.getRays())
+			dd.addRay(r.numerators);
+
+		return dd.getInequalities();
+	}
+
+	/**
+	 * Compute the facets of the convex hull of the points of a .poi file and write them in the file {@code poiFile}.ieq (as traf does)
+	 * @param poiFile Path of the .poi file
+	 * @return The equations of the affine hull followed by the facets
+	 * @throws IOException
+	 * @throws InvalidPOIFileFormatException
+	 */
+	public static List<Inequality> traf(String poiFile) throws IOException, InvalidPOIFileFormatException {
+
+		POIReader poi = new POIReader(poiFile);
+		List<Inequality> facets = computeFacets(poi);
+
+		Inequality.writeInequalities(poiFile + ".ieq", poi.getDimension(), facets);
+
+		return facets;
+	}
+
+	/**
+	 * Test if two lists of equations and inequalities describe the same polyhedron as the same set of facets
+	 * (e.g., the output of traf and of {@code computeFacets}).
+	 * The two lists are compared once put in the canonical form of {@code DoubleDescription.getInequalities}.
+	 * @param dimension Number of variables
+	 * @param description1 Equations and facet inequalities
+	 * @param description2 Equations and facet inequalities
+	 * @return True if the equations span the same space and the facets are the same modulo the equations
+	 */
+	public static boolean isSameDescription(int dimension, List<Inequality> description1, List<Inequality> description2) {
+		return canonicalize(dimension, description1).equals(canonicalize(dimension, description2));
+	}
+
+	/**
+	 * @return The description in the canonical form of {@code DoubleDescription.getInequalities}
+	 */
+	static List<Inequality> canonicalize(int dimension, List<Inequality> description) {
+
+		List<BigInteger[]> equations = new ArrayList<>();
+		List<BigInteger[]> inequalities = new ArrayList<>();
+
+		for(Inequality inequality: description) {
+
+			/* Vector (rhs, a) of a.x <= rhs */
+			BigInteger[] v = new BigInteger[dimension + 1];
+			long sign = inequality.sense == Inequality.Sense.GREATER_OR_EQUAL ? -1 : 1;
+
+			v[0] = BigInteger.valueOf(inequality.rhs).multiply(BigInteger.valueOf(sign));
+
+			for(int i = 0; i < dimension; i++)
+				v[i + 1] = BigInteger.valueOf(inequality.coefficients[i]).multiply(BigInteger.valueOf(sign));
+
+			if(inequality.sense == Inequality.Sense.EQUAL)
+				equations.add(v);
+			else
+				inequalities.add(v);
+		}
+
+		return DoubleDescription.canonicalize(dimension, equations, inequalities);
+	}
+
+	public static void main(String[] args) {
+
+		if(args.length < 1) {
+			System.err.println("Usage: java porta.Traf file.poi [reference.ieq]");
+			System.exit(1);
+		}
+
+		try {
+			long start = System.currentTimeMillis();
+			List<Inequality> facets = traf(args[0]);
+
+			System.out.println(facets.size() + " equations and facets written in " + args[0] + ".ieq (" + (System.currentTimeMillis() - start) + "ms)");
+
+			if(args.length > 1) {
+				int dimension = new POIReader(args[0]).getDimension();
+				List<Inequality> reference = Inequality.readInequalities(args[1], dimension);
+
+				if(isSameDescription(dimension, facets, reference))
+					System.out.println("Same description as " + args[1]);
+				else {
+					System.out.println("Different description from " + args[1]);
+					System.exit(2);
+				}
+			}
+		} catch (IOException | InvalidPOIFileFormatException | InvalidIEQFileFormatException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+}
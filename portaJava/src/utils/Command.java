@@ -1,10 +1,9 @@
 package utils;
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.regex.Pattern;
@@ -18,26 +17,25 @@ public class Command {
 	/**
 	 * Execute a command
 	 * @param command The text of the command
-	 * @return The command output; null if an error occurred
+	 * @return The command output (only its last {@code ProcessRunner.DEFAULT_BUFFER_SIZE} characters if it is larger, use {@code execute(command, outputFile)} otherwise); null if an error occurred
 	 */
 	public static String execute(String command){
-		String result = "";
-        
-        Process p;
-        try {
-            p = Runtime.getRuntime().exec(command);
-            BufferedReader br = new BufferedReader(
-                new InputStreamReader(p.getInputStream()));
-            
-            String s = null;    
-            while ((s = br.readLine()) != null)
-            	result += s + "\n";
-                
-            p.waitFor();
-            p.destroy();
-        } catch (Exception e) {result = null;}
-        
-        return result;
+		String result;
+
+		try {
+			ProcessRunner.Result r = new ProcessRunner(ProcessRunner.split(command)).run();
+			result = r.getOutput();
+
+			if(r.isTruncated())
+				System.err.println("Warning: the output of \"" + command + "\" was truncated to its last " + ProcessRunner.DEFAULT_BUFFER_SIZE + " characters");
+		} catch (IOException e) {
+			result = null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			result = null;
+		}
+
+		return result;
 	}
 	
 	/**
@@ -47,42 +45,37 @@ public class Command {
 	 * @return The file in which the result was output; null if an error occurred
 	 */
 	public static File execute(String command, String outputFile){
-		String s = null;
 
-        File f = new File(outputFile);
-        String sParentPath = f.getParent();
+		File f = new File(outputFile);
+		String sParentPath = f.getParent();
 		File fFolder = new File(sParentPath);
 		
 		if(!fFolder.exists())
 			fFolder.mkdir();
 		
+		try (BufferedWriter bw = new BufferedWriter(new FileWriter(f, false))){
+
+			/* The output is written in the file as it is read, it is not kept in memory */
+			ProcessRunner.Result result = new ProcessRunner(ProcessRunner.split(command)).setBufferSize(0).setOutputLineConsumer(s -> {
+				try {
+					bw.write(s + "\n");
+					bw.flush();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}).run();
+
+			/* The file is incomplete if a line could not be written */
+			if(result.getConsumerError() != null)
+				return null;
+
+			bw.write("exit: " + result.getExitCode());
+			bw.flush();
+		} catch (Exception e) {
+			f = null;
+		}
 		
-        Process p;
-        try {
-        	
-        	FileWriter fw = new FileWriter(f, false);
-        	BufferedWriter bw = new BufferedWriter(fw);
-        	
-        	
-            p = Runtime.getRuntime().exec(command);
-            BufferedReader br = new BufferedReader(
-                new InputStreamReader(p.getInputStream()));
-            while ((s = br.readLine()) != null){
-            	bw.write(s);
-            	bw.flush();
-            }
-                
-            p.waitFor();
-            bw.write("exit: " + p.exitValue());
-            bw.flush();
-            bw.close();
-            
-            p.destroy();
-        } catch (Exception e) {
-        	f = null;
-        }
-        
-        return f;
+		return f;
 	}
 
 
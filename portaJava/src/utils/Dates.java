@@ -1,22 +1,19 @@
 package utils;
 
-import java.util.*;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 
 public class Dates
 {
-//      * Choix de la langue francaise
-        static Locale locale = Locale.getDefault();
-        static Date actuelle = new Date();
+//      * Date du lancement du programme (la même pour tous les appels)
+        static final LocalDateTime actuelle = LocalDateTime.now();
 
-//      * Definition du format utilise pour les dates
-        static DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd-hh'h'mm");
+//      * Definition du format utilise pour les dates (DateTimeFormatter est immuable et peut être utilisé par plusieurs threads)
+        static final DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd-hh'h'mm");
 
-//      * Donne la date au format "aaaa-mm-jj"
+//      * Donne la date au format "aaaa-mm-jj-hhhmm"
         public static String date()
         {
-                String dat = dateFormat.format(actuelle);
-                return dat;
+                return dateFormat.format(actuelle);
         }
 }
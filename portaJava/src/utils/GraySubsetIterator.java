@@ -0,0 +1,126 @@
+package utils;
+
+/**
+ * Lazy enumeration of the subsets of {1, ..., n} in Gray-code order (n <= 62).
+ *
+ * Each subset is represented by a long bitmask in which the bit i-1 is set if element i belongs to the subset.
+ * Two consecutive subsets differ by exactly one element (see {@code getFlippedElement()}), which enables incremental updates.
+ * No object is allocated during the enumeration.
+ *
+ * Example:
+ * GraySubsetIterator it = new GraySubsetIterator(n);
+ * while(it.hasNext()) {
+ * 		long subset = it.nextSubset();
+ * 		...
+ * }
+ *
+ * For larger ground sets, see {@link LargeGraySubsetIterator}.
+ */
+public class GraySubsetIterator {
+
+	/** Maximal number of elements (the number of subsets 2^n must be a positive long) */
+	public static final int MAX_ELEMENTS = 62;
+
+	/** Rank of the first subset enumerated */
+	private final long from;
+
+	/** Rank following the last subset enumerated */
+	private final long to;
+
+	/** Rank of the next subset */
+	private long rank;
+
+	/** Current subset */
+	private long subset;
+
+	/** Element added or removed to obtain the current subset (between 1 and n); 0 for the first subset */
+	private int flippedElement;
+
+	/**
+	 * Enumerate all the 2^n subsets of {1, ..., n}
+	 * @param n Number of elements (at most {@code MAX_ELEMENTS})
+	 */
+	public GraySubsetIterator(int n) {
+		this(n, 0, 1L << checkSize(n));
+	}
+
+	/**
+	 * Enumerate the subsets whose rank in the Gray-code order is in [from, to[
+	 * @param n Number of elements (at most {@code MAX_ELEMENTS})
+	 * @param from Rank of the first subset
+	 * @param to Rank following the last subset
+	 */
+	public GraySubsetIterator(int n, long from, long to) {
+
+		checkSize(n);
+
+		if(from < 0 || to > (1L << n) || from > to)
+			throw new IllegalArgumentException("Invalid range [" + from + ", " + to + "[ for " + n + " elements");
+
+		this.from = from;
+		this.to = to;
+		this.rank = from;
+	}
+
+	private static int checkSize(int n) {
+		if(n < 0 || n > MAX_ELEMENTS)
+			throw new IllegalArgumentException("The 2^n subsets of " + n + " elements cannot be ranked with a long (maximum: " + MAX_ELEMENTS + " elements)");
+		return n;
+	}
+
+	/**
+	 * Gray code of a rank
+	 * @param rank
+	 * @return The bitmask of the subset of rank {@code rank}
+	 */
+	public static long gray(long rank) {
+		return rank ^ (rank >>> 1);
+	}
+
+	public boolean hasNext() {
+		return rank < to;
+	}
+
+	/**
+	 * Move to the next subset
+	 * @return The bitmask of the next subset
+	 */
+	public long nextSubset() {
+
+		if(rank == from) {
+			subset = gray(rank);
+			flippedElement = 0;
+		}
+		else {
+
+			/* g(r) and g(r-1) only differ on the lowest bit set in r */
+			int bit = Long.numberOfTrailingZeros(rank);
+			subset ^= 1L << bit;
+			flippedElement = bit + 1;
+		}
+
+		rank++;
+		return subset;
+	}
+
+	/**
+	 * @return The element which has been added or removed to obtain the current subset; 0 if the current subset is the first one
+	 */
+	public int getFlippedElement() {
+		return flippedElement;
+	}
+
+	/**
+	 * @return True if the last element flipped has been added to the current subset
+	 */
+	public boolean isFlippedElementAdded() {
+		return flippedElement != 0 && (subset & (1L << (flippedElement - 1))) != 0;
+	}
+
+	/**
+	 * @return The bitmask of the current subset
+	 */
+	public long getSubset() {
+		return subset;
+	}
+}
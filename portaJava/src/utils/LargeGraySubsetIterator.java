@@ -0,0 +1,99 @@
+package utils;
+
+/**
+ * Lazy enumeration of the subsets of {1, ..., n} in Gray-code order for any n.
+ *
+ * Same as {@link GraySubsetIterator} except that each subset is represented by a long[] bitmask
+ * (bit (i-1) % 64 of word (i-1) / 64 is set if element i belongs to the subset).
+ * The array returned by {@code nextSubset()} is reused from one subset to the next and must not be modified.
+ */
+public class LargeGraySubsetIterator {
+
+	/** Number of elements */
+	private final int n;
+
+	/** Rank of the next subset (n+1 bits) */
+	private final long[] rank;
+
+	/** Current subset */
+	private final long[] subset;
+
+	/** Element added or removed to obtain the current subset (between 1 and n); 0 for the first subset */
+	private int flippedElement;
+
+	/**
+	 * Enumerate all the 2^n subsets of {1, ..., n}
+	 * @param n Number of elements
+	 */
+	public LargeGraySubsetIterator(int n) {
+
+		if(n < 0)
+			throw new IllegalArgumentException("Invalid number of elements: " + n);
+
+		this.n = n;
+		this.rank = new long[n / 64 + 1];
+		this.subset = new long[Math.max(1, (n + 63) / 64)];
+	}
+
+	/**
+	 * @return Number of words of the bitmasks
+	 */
+	public int getWordCount() {
+		return subset.length;
+	}
+
+	public boolean hasNext() {
+
+		/* The enumeration is over once the rank reaches 2^n */
+		return (rank[n / 64] & (1L << (n % 64))) == 0;
+	}
+
+	/**
+	 * Move to the next subset
+	 * @return The bitmask of the next subset (shared between calls)
+	 */
+	public long[] nextSubset() {
+
+		/* Index of the lowest bit set in the rank; -1 if the rank is 0 */
+		int bit = -1;
+
+		for(int w = 0 ; w < rank.length && bit == -1 ; w++)
+			if(rank[w] != 0)
+				bit = w * 64 + Long.numberOfTrailingZeros(rank[w]);
+
+		if(bit == -1)
+			flippedElement = 0;
+		else {
+			subset[bit / 64] ^= 1L << (bit % 64);
+			flippedElement = bit + 1;
+		}
+
+		/* Increment the rank */
+		int w = 0;
+		while(++rank[w] == 0)
+			w++;
+
+		return subset;
+	}
+
+	/**
+	 * @return The element which has been added or removed to obtain the current subset; 0 if the current subset is the first one
+	 */
+	public int getFlippedElement() {
+		return flippedElement;
+	}
+
+	/**
+	 * @return True if the last element flipped has been added to the current subset
+	 */
+	public boolean isFlippedElementAdded() {
+		return flippedElement != 0 && (subset[(flippedElement - 1) / 64] & (1L << ((flippedElement - 1) % 64))) != 0;
+	}
+
+	/**
+	 * @return The bitmask of the current subset (shared between calls)
+	 */
+	public long[] getSubset() {
+		return subset;
+	}
+}
@@ -0,0 +1,377 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Cache of the results of the porta commands (traf, vint, dim, ...), so that a command run again on the same input does not start a process.
+ *
+ * A result is identified by the SHA-256 hash of the command and of the normalized content of its input file
+ * (the white spaces at the beginning and at the end of the lines, the repeated white spaces and the empty lines are ignored).
+ * A result includes the output of the command and the files it wrote next to its input (the input path followed by .ieq or .poi).
+ * When a result is found, these files are copied next to the new input file.
+ *
+ * The results are kept in two levels:
+ * - in memory: the most recently used results, up to a number of bytes;
+ * - on the disk (optional): all the results, one folder by hash, so that they are shared between runs.
+ *
+ * Example:
+ * PortaCache cache = new PortaCache(new File(".portaCache"), PortaCache.DEFAULT_MEMORY_BYTES);
+ * polytope.setPortaCache(cache);
+ */
+public class PortaCache {
+
+	/** Default maximal number of bytes of the results kept in memory */
+	public static final long DEFAULT_MEMORY_BYTES = 64L << 20;
+
+	/** Suffixes of the files written by porta next to its input file */
+	static final String[] OUTPUT_SUFFIXES = {".ieq", ".poi"};
+
+	/** Name of the file which contains the output of the command in the folder of a result */
+	static final String OUTPUT_FILE = "output.txt";
+
+	/** Prefix of the name of the files written by the command in the folder of a result (followed by their suffix) */
+	static final String RESULT_FILE = "result";
+
+	/**
+	 * Output and files of a command
+	 */
+	static class Artifact {
+
+		String output;
+
+		/** Content of the file written by the command for each suffix of {@code OUTPUT_SUFFIXES} (null if not written) */
+		byte[][] files = new byte[OUTPUT_SUFFIXES.length][];
+
+		long size() {
+
+			long size = output.length() * 2L;
+
+			for(byte[] file: files)
+				if(file != null)
+					size += file.length;
+
+			return size;
+		}
+	}
+
+	/** Folder of the results on the disk; null if they are only kept in memory */
+	File directory;
+
+	long memoryBytes;
+
+	/** Results kept in memory, from the least to the most recently used */
+	LinkedHashMap<String, Artifact> memory = new LinkedHashMap<>(16, 0.75f, true);
+
+	/** Number of bytes of the results in memory */
+	long usedMemoryBytes = 0;
+
+	AtomicLong memoryHitCount = new AtomicLong();
+	AtomicLong diskHitCount = new AtomicLong();
+	AtomicLong missCount = new AtomicLong();
+
+	/**
+	 * @param directory Folder of the results on the disk (created if necessary); null to only keep them in memory
+	 * @param memoryBytes Maximal number of bytes of the results kept in memory
+	 */
+	public PortaCache(File directory, long memoryBytes) {
+
+		this.directory = directory;
+		this.memoryBytes = memoryBytes;
+
+		if(directory != null)
+			directory.mkdirs();
+	}
+
+	/**
+	 * Get the result of a command from the cache or run it
+	 * @param command The porta command (traf, dim, vint, ...)
+	 * @param inputFile Path of the input file
+	 * @param runner Run the command and return its output (null if an error occurred or if the command failed: only the successful runs are cached)
+	 * @return The output of the command; null if an error occurred
+	 */
+	public String execute(String command, File inputFile, Supplier<String> runner) {
+
+		/* A named pipe can only be read once (by porta) */
+		if(!Files.isRegularFile(inputFile.toPath()))
+			return runner.get();
+
+		String key;
+
+		try {
+			key = key(command, inputFile);
+		} catch (IOException e) {
+			return runner.get();
+		}
+
+		Artifact artifact = get(key);
+
+		if(artifact != null)
+			try {
+				restore(artifact, inputFile);
+				return artifact.output;
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+
+		missCount.incrementAndGet();
+
+		/* The files written by the command are the output files which are created or modified during its run */
+		long[] lastModified = new long[OUTPUT_SUFFIXES.length];
+
+		for(int i = 0; i < OUTPUT_SUFFIXES.length; i++)
+			lastModified[i] = outputFile(inputFile, i).lastModified();
+
+		String output = runner.get();
+
+		/* A failed run (e.g., stopped by a timeout or by the limits of a budget) may succeed later */
+		if(output == null)
+			return null;
+
+		artifact = new Artifact();
+		artifact.output = output;
+
+		try {
+			for(int i = 0; i < OUTPUT_SUFFIXES.length; i++) {
+				File file = outputFile(inputFile, i);
+
+				if(file.exists() && file.lastModified() != lastModified[i])
+					artifact.files[i] = Files.readAllBytes(file.toPath());
+			}
+
+			put(key, artifact);
+
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+
+		return output;
+	}
+
+	/**
+	 * @param command The porta command
+	 * @param inputFile The input file
+	 * @return SHA-256 hash (hexadecimal) of the command and of the normalized content of the file
+	 * @throws IOException
+	 */
+	public static String key(String command, File inputFile) throws IOException {
+
+		MessageDigest digest;
+
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+
+		digest.update(command.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+
+		try(Stream<String> lines = Files.lines(inputFile.toPath(), StandardCharsets.ISO_8859_1)){
+			Iterator<String> it = lines.iterator();
+
+			while(it.hasNext()) {
+				String line = it.next().trim().replaceAll("\\s+", " ");
+
+				if(!line.isEmpty()) {
+					digest.update(line.getBytes(StandardCharsets.ISO_8859_1));
+					digest.update((byte) '\n');
+				}
+			}
+		}
+
+		return toHex(digest.digest());
+	}
+
+	/**
+	 * @return The bytes in hexadecimal
+	 */
+	static String toHex(byte[] bytes) {
+
+		StringBuilder sb = new StringBuilder();
+
+		for(byte b: bytes)
+			sb.append(String.format("%02x", b));
+
+		return sb.toString();
+	}
+
+	/**
+	 * Find a result in memory, then on the disk
+	 * @return The result; null if it is not in the cache
+	 */
+	private Artifact get(String key) {
+
+		synchronized(this) {
+			Artifact artifact = memory.get(key);
+
+			if(artifact != null) {
+				memoryHitCount.incrementAndGet();
+				return artifact;
+			}
+		}
+
+		if(directory == null)
+			return null;
+
+		File folder = new File(directory, key);
+		File outputFile = new File(folder, OUTPUT_FILE);
+
+		if(!outputFile.exists())
+			return null;
+
+		try {
+			Artifact artifact = new Artifact();
+			artifact.output = new String(Files.readAllBytes(outputFile.toPath()), StandardCharsets.UTF_8);
+
+			for(int i = 0; i < OUTPUT_SUFFIXES.length; i++) {
+				File file = new File(folder, RESULT_FILE + OUTPUT_SUFFIXES[i]);
+
+				if(file.exists())
+					artifact.files[i] = Files.readAllBytes(file.toPath());
+			}
+
+			diskHitCount.incrementAndGet();
+			putInMemory(key, artifact);
+
+			return artifact;
+
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Add a result in memory and on the disk
+	 * @throws IOException
+	 */
+	private void put(String key, Artifact artifact) throws IOException {
+
+		putInMemory(key, artifact);
+
+		if(directory == null || new File(directory, key).exists())
+			return;
+
+		/* The folder is written under a temporary name then renamed, so that a folder of the cache is always complete */
+		Path tmp = Files.createTempDirectory(directory.toPath(), key + ".tmp");
+
+		try {
+			Files.write(tmp.resolve(OUTPUT_FILE), artifact.output.getBytes(StandardCharsets.UTF_8));
+
+			for(int i = 0; i < OUTPUT_SUFFIXES.length; i++)
+				if(artifact.files[i] != null)
+					Files.write(tmp.resolve(RESULT_FILE + OUTPUT_SUFFIXES[i]), artifact.files[i]);
+
+			try {
+				Files.move(tmp, new File(directory, key).toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp, new File(directory, key).toPath());
+			}
+		} catch (IOException e) {
+
+			/* Another process may have stored the same result in the meantime */
+			if(!new File(directory, key).exists())
+				throw e;
+		}
+		finally {
+			deleteRecursively(tmp);
+		}
+	}
+
+	private synchronized void putInMemory(String key, Artifact artifact) {
+
+		long size = artifact.size();
+
+		if(size > memoryBytes)
+			return;
+
+		Artifact previous = memory.put(key, artifact);
+
+		if(previous != null)
+			usedMemoryBytes -= previous.size();
+
+		usedMemoryBytes += size;
+
+		/* Remove the least recently used results */
+		Iterator<Map.Entry<String, Artifact>> it = memory.entrySet().iterator();
+
+		while(usedMemoryBytes > memoryBytes && it.hasNext()) {
+			usedMemoryBytes -= it.next().getValue().size();
+			it.remove();
+		}
+	}
+
+	/**
+	 * Copy the files of a result next to an input file
+	 * @throws IOException
+	 */
+	private static void restore(Artifact artifact, File inputFile) throws IOException {
+
+		for(int i = 0; i < OUTPUT_SUFFIXES.length; i++)
+			if(artifact.files[i] != null)
+				Files.write(outputFile(inputFile, i).toPath(), artifact.files[i]);
+	}
+
+	private static File outputFile(File inputFile, int suffix) {
+		return new File(inputFile.getPath() + OUTPUT_SUFFIXES[suffix]);
+	}
+
+	private static void deleteRecursively(Path path) throws IOException {
+
+		if(Files.exists(path))
+			try(Stream<Path> paths = Files.walk(path)){
+				paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+			}
+	}
+
+	/**
+	 * Remove all the results from the memory and from the disk
+	 * @throws IOException
+	 */
+	public synchronized void clear() throws IOException {
+
+		memory.clear();
+		usedMemoryBytes = 0;
+
+		if(directory != null) {
+			File[] folders = directory.listFiles();
+
+			if(folders != null)
+				for(File folder: folders)
+					deleteRecursively(folder.toPath());
+		}
+	}
+
+	public long getMemoryHitCount() {
+		return memoryHitCount.get();
+	}
+
+	public long getDiskHitCount() {
+		return diskHitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * @return Number of bytes of the results currently kept in memory
+	 */
+	public synchronized long getUsedMemoryBytes() {
+		return usedMemoryBytes;
+	}
+}
@@ -0,0 +1,300 @@
+package utils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Run the porta commands (traf, vint, dim, ...) of several polytopes with a bounded number of processes at the same time.
+ *
+ * The jobs are split into two lanes: the long runs (traf, vint) and the quick checks (dim). Each lane has its own queue, ordered by decreasing priority then by submission order.
+ * Some slots are reserved for the quick jobs so that they never wait for the end of a long run, and when both lanes can start a job they are served in turn.
+ * Each job can have a budget: a timeout (the process is destroyed when it is reached) and limits on its memory and CPU time (applied with ulimit).
+ */
+public class PortaScheduler {
+
+	/** Kind of job */
+	public enum Lane{
+
+		/* Long runs (traf, vint) */
+		HEAVY,
+
+		/* Quick checks (dim) */
+		LIGHT
+	}
+
+	/**
+	 * Resources allowed to a job (0 for no limit)
+	 */
+	public static class Budget {
+
+		public static final Budget NONE = new Budget(0, 0, 0);
+
+		/** Maximal running time in milliseconds */
+		final long timeoutMillis;
+
+		/** Maximal virtual memory in kilobytes (ulimit -v) */
+		final long memoryKB;
+
+		/** Maximal CPU time in seconds (ulimit -t) */
+		final long cpuSeconds;
+
+		public Budget(long timeoutMillis, long memoryKB, long cpuSeconds) {
+			this.timeoutMillis = timeoutMillis;
+			this.memoryKB = memoryKB;
+			this.cpuSeconds = cpuSeconds;
+		}
+	}
+
+	/** Maximal number of processes running at the same time */
+	int maxJobs;
+
+	/** Number of slots which can only be used by the light jobs */
+	int reservedLightSlots;
+
+	int runningHeavy = 0;
+	int runningLight = 0;
+
+	/** Lane of the last job started when both lanes could start one */
+	Lane lastLane = Lane.LIGHT;
+
+	PriorityQueue<Job> heavyQueue = new PriorityQueue<>(JOB_ORDER);
+	PriorityQueue<Job> lightQueue = new PriorityQueue<>(JOB_ORDER);
+
+	/** Threads which wait for the processes (their number is bounded by maxJobs through the dispatch) */
+	ExecutorService executor = Executors.newCachedThreadPool(r -> {
+		Thread t = new Thread(r, "porta job");
+		t.setDaemon(true);
+		return t;
+	});
+
+	/** Submission counter used to keep the order of the jobs of same priority */
+	AtomicLong submissions = new AtomicLong();
+
+	boolean isShutdown = false;
+
+	static final Comparator<Job> JOB_ORDER = Comparator.<Job>comparingInt(j -> -j.priority).thenComparingLong(j -> j.sequence);
+
+	/**
+	 * @param maxJobs Maximal number of processes running at the same time
+	 * @param reservedLightSlots Number of slots reserved to the light jobs (between 0 and maxJobs - 1)
+	 */
+	public PortaScheduler(int maxJobs, int reservedLightSlots) {
+
+		if(maxJobs < 1 || reservedLightSlots < 0 || reservedLightSlots >= maxJobs)
+			throw new IllegalArgumentException("Invalid number of slots (" + maxJobs + " slots, " + reservedLightSlots + " reserved for the light jobs)");
+
+		this.maxJobs = maxJobs;
+		this.reservedLightSlots = reservedLightSlots;
+	}
+
+	/**
+	 * @param command Name of a porta command
+	 * @return LIGHT for dim; HEAVY otherwise
+	 */
+	public static Lane laneOf(String command) {
+		return "dim".equals(command) ? Lane.LIGHT : Lane.HEAVY;
+	}
+
+	/**
+	 * Queue a porta command
+	 * @param command The program and its arguments
+	 * @param directory Working directory of the process (null for the current directory)
+	 * @param lane Lane of the job
+	 * @param priority Priority of the job (the largest first)
+	 * @param budget Resources allowed to the job
+	 * @return The result of the job; cancelling it removes it from the queue or destroys its process
+	 */
+	public synchronized Future<ProcessRunner.Result> submit(List<String> command, File directory, Lane lane, int priority, Budget budget) {
+
+		if(isShutdown)
+			throw new IllegalStateException("The scheduler is shut down");
+
+		ProcessRunner runner = new ProcessRunner(withLimits(command, budget)).setDirectory(directory);
+
+		if(budget.timeoutMillis > 0)
+			runner.setTimeout(budget.timeoutMillis, TimeUnit.MILLISECONDS);
+
+		Job job = new Job(runner, lane, priority, submissions.getAndIncrement());
+		(lane == Lane.HEAVY ? heavyQueue : lightQueue).add(job);
+		dispatch();
+
+		return job;
+	}
+
+	/**
+	 * Queue a porta command and wait for its end
+	 * @return The output of the command; null if an error occurred, if the command failed (non-zero exit code) or if it was stopped (timeout, cancellation, limit of its budget)
+	 */
+	public String execute(List<String> command, File directory, Lane lane, int priority, Budget budget) {
+
+		Future<ProcessRunner.Result> job = submit(command, directory, lane, priority, budget);
+
+		try {
+			ProcessRunner.Result result = job.get();
+
+			if(!result.isSuccess()) {
+				System.err.println("The command \"" + String.join(" ", command) + "\" failed (exit code " + result.getExitCode() + (result.isTimedOut() ? ", timed out" : "") + (result.isCancelled() ? ", cancelled" : "") + ")");
+				return null;
+			}
+
+			return result.getOutput();
+		} catch (InterruptedException e) {
+			System.err.println("The command \"" + String.join(" ", command) + "\" was interrupted");
+			job.cancel(true);
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (CancellationException e) {
+			System.err.println("The command \"" + String.join(" ", command) + "\" was cancelled");
+			return null;
+		} catch (ExecutionException e) {
+			System.err.println("The command \"" + String.join(" ", command) + "\" failed (" + e.getCause() + ")");
+			return null;
+		}
+	}
+
+	/**
+	 * Prefix a command with the ulimit calls of a budget
+	 */
+	static List<String> withLimits(List<String> command, Budget budget) {
+
+		if(budget.memoryKB <= 0 && budget.cpuSeconds <= 0)
+			return command;
+
+		String limits = "";
+
+		if(budget.memoryKB > 0)
+			limits += "ulimit -v " + budget.memoryKB + "; ";
+
+		if(budget.cpuSeconds > 0)
+			limits += "ulimit -t " + budget.cpuSeconds + "; ";
+
+		List<String> result = new ArrayList<>();
+		result.add("sh");
+		result.add("-c");
+		result.add(limits + "exec \"$0\" \"$@\"");
+		result.addAll(command);
+
+		return result;
+	}
+
+	/**
+	 * Start the queued jobs while slots are available
+	 */
+	private synchronized void dispatch() {
+
+		while(true) {
+			boolean isSlotFree = runningHeavy + runningLight < maxJobs;
+			boolean canStartHeavy = isSlotFree && !heavyQueue.isEmpty() && runningHeavy < maxJobs - reservedLightSlots;
+			boolean canStartLight = isSlotFree && !lightQueue.isEmpty();
+
+			Lane lane;
+
+			if(canStartHeavy && canStartLight)
+				lane = lastLane == Lane.HEAVY ? Lane.LIGHT : Lane.HEAVY;
+			else if(canStartHeavy)
+				lane = Lane.HEAVY;
+			else if(canStartLight)
+				lane = Lane.LIGHT;
+			else
+				return;
+
+			lastLane = lane;
+
+			if(lane == Lane.HEAVY) {
+				runningHeavy++;
+				executor.execute(heavyQueue.poll());
+			}
+			else {
+				runningLight++;
+				executor.execute(lightQueue.poll());
+			}
+		}
+	}
+
+	/**
+	 * Remove a cancelled job from its queue (nothing is done if it has already been started)
+	 */
+	private synchronized void dequeue(Job job) {
+		(job.lane == Lane.HEAVY ? heavyQueue : lightQueue).remove(job);
+	}
+
+	private synchronized void finished(Lane lane) {
+
+		if(lane == Lane.HEAVY)
+			runningHeavy--;
+		else
+			runningLight--;
+
+		dispatch();
+	}
+
+	/**
+	 * @return Number of jobs waiting in the queues
+	 */
+	public synchronized int getQueuedJobCount() {
+		return heavyQueue.size() + lightQueue.size();
+	}
+
+	/**
+	 * @return Number of processes running
+	 */
+	public synchronized int getRunningJobCount() {
+		return runningHeavy + runningLight;
+	}
+
+	/**
+	 * Refuse the new jobs (the queued jobs are still run, the idle threads stop by themselves)
+	 */
+	public synchronized void shutdown() {
+		isShutdown = true;
+	}
+
+	/**
+	 * A queued job
+	 */
+	private class Job extends FutureTask<ProcessRunner.Result> {
+
+		Lane lane;
+		int priority;
+		long sequence;
+
+		Job(ProcessRunner runner, Lane lane, int priority, long sequence) {
+			super(runner::run);
+			this.lane = lane;
+			this.priority = priority;
+			this.sequence = sequence;
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+
+			boolean isCancelled = super.cancel(mayInterruptIfRunning);
+
+			if(isCancelled)
+				dequeue(this);
+
+			return isCancelled;
+		}
+
+		@Override
+		public void run() {
+			try {
+				super.run();
+			}
+			finally {
+				finished(lane);
+			}
+		}
+	}
+}
@@ -0,0 +1,409 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.StringTokenizer;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Run an external command with {@code ProcessBuilder}.
+ *
+ * The standard output and the standard error are drained at the same time by two threads (or redirected to files), so that a process which writes a lot on one of them never blocks.
+ * Only the last lines of each output are kept in memory, within a bound ({@code DEFAULT_BUFFER_SIZE} characters by default, see {@code setBufferSize}); {@code Result.isTruncated} tells if some lines were dropped.
+ * A large output should be given line by line to a consumer as soon as it is read (see {@code setOutputLineConsumer}) or redirected to a file.
+ * A process can be stopped after a timeout or cancelled.
+ *
+ * Example:
+ * ProcessRunner.Result result = new ProcessRunner("traf", "tmp.poi").setTimeout(10, TimeUnit.MINUTES).run();
+ */
+public class ProcessRunner {
+
+	/** Default maximal number of characters kept in memory for each output */
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 22;
+
+	/** Time given to a process to stop after {@code destroy} before it is killed */
+	static final long DESTROY_GRACE_MILLIS = 1000;
+
+	List<String> command;
+
+	/** Working directory of the process; null for the current directory */
+	File directory = null;
+
+	/** Files in which the outputs are redirected; null to drain them in memory */
+	File outputFile = null;
+	File errorFile = null;
+
+	int bufferSize = DEFAULT_BUFFER_SIZE;
+
+	/** Maximal running time in milliseconds; 0 for no limit */
+	long timeoutMillis = 0;
+
+	/** Consumer of each line of the standard output (when it is not redirected); null if not used */
+	Consumer<String> outputLineConsumer = null;
+
+	/**
+	 * @param command The program and its arguments
+	 */
+	public ProcessRunner(String... command) {
+		this(Arrays.asList(command));
+	}
+
+	/**
+	 * @param command The program and its arguments
+	 */
+	public ProcessRunner(List<String> command) {
+		this.command = new ArrayList<>(command);
+	}
+
+	/**
+	 * Split a command line on white spaces (as {@code Runtime.exec(String)} does)
+	 * @param commandLine The command line
+	 * @return The program and its arguments
+	 */
+	public static List<String> split(String commandLine) {
+
+		List<String> result = new ArrayList<>();
+		StringTokenizer st = new StringTokenizer(commandLine);
+
+		while(st.hasMoreTokens())
+			result.add(st.nextToken());
+
+		return result;
+	}
+
+	public ProcessRunner setDirectory(File directory) {
+		this.directory = directory;
+		return this;
+	}
+
+	/**
+	 * @param outputFile File in which the standard output is written (it is then not kept in memory); null to keep it in memory
+	 */
+	public ProcessRunner setOutputFile(File outputFile) {
+		this.outputFile = outputFile;
+		return this;
+	}
+
+	/**
+	 * @param errorFile File in which the standard error is written (it is then not kept in memory); null to keep it in memory
+	 */
+	public ProcessRunner setErrorFile(File errorFile) {
+		this.errorFile = errorFile;
+		return this;
+	}
+
+	/**
+	 * @param bufferSize Maximal number of characters kept in memory for each output (the last lines are kept; {@code DEFAULT_BUFFER_SIZE} by default)
+	 */
+	public ProcessRunner setBufferSize(int bufferSize) {
+		this.bufferSize = bufferSize;
+		return this;
+	}
+
+	/**
+	 * @param timeout Maximal running time of the process (0 for no limit); the process is destroyed when it is reached
+	 * @param unit Unit of the timeout
+	 */
+	public ProcessRunner setTimeout(long timeout, TimeUnit unit) {
+		this.timeoutMillis = unit.toMillis(timeout);
+		return this;
+	}
+
+	/**
+	 * @param consumer Consumer of each line of the standard output, called from the thread which drains it
+	 */
+	public ProcessRunner setOutputLineConsumer(Consumer<String> consumer) {
+		this.outputLineConsumer = consumer;
+		return this;
+	}
+
+	/**
+	 * Start the process and wait for its end
+	 * @return The result of the execution
+	 * @throws IOException If the process cannot be started
+	 * @throws InterruptedException If the current thread is interrupted (the process is then destroyed)
+	 */
+	public Result run() throws IOException, InterruptedException {
+		return start().waitFor();
+	}
+
+	/**
+	 * Start the process without waiting for its end
+	 * @return The execution, which can be waited for or cancelled
+	 * @throws IOException If the process cannot be started
+	 */
+	public Execution start() throws IOException {
+
+		ProcessBuilder pb = new ProcessBuilder(command);
+
+		if(directory != null)
+			pb.directory(directory);
+
+		if(outputFile != null)
+			pb.redirectOutput(outputFile);
+
+		if(errorFile != null)
+			pb.redirectError(errorFile);
+
+		return new Execution(pb.start());
+	}
+
+	/**
+	 * A running process
+	 */
+	public class Execution {
+
+		Process process;
+		OutputBuffer output = new OutputBuffer(bufferSize);
+		OutputBuffer error = new OutputBuffer(bufferSize);
+		List<Thread> drainers = new ArrayList<>();
+		long startTime = System.currentTimeMillis();
+		volatile boolean isCancelled = false;
+
+		/** First exception thrown by the output line consumer; null if it never failed */
+		volatile RuntimeException consumerError = null;
+
+		Execution(Process process) {
+
+			this.process = process;
+
+			if(outputFile == null)
+				drain(process.getInputStream(), output, outputLineConsumer, "stdout");
+
+			if(errorFile == null)
+				drain(process.getErrorStream(), error, null, "stderr");
+		}
+
+		private void drain(InputStream stream, OutputBuffer buffer, Consumer<String> consumer, String name) {
+
+			Thread t = new Thread(() -> {
+				try(BufferedReader br = new BufferedReader(new InputStreamReader(stream))){
+					String line;
+					Consumer<String> lineConsumer = consumer;
+
+					while((line = br.readLine()) != null) {
+						buffer.append(line);
+
+						/* The stream is still drained if the consumer fails */
+						if(lineConsumer != null)
+							try {
+								lineConsumer.accept(line);
+							} catch(RuntimeException e) {
+								e.printStackTrace();
+								consumerError = e;
+								lineConsumer = null;
+							}
+					}
+				} catch (IOException e) {
+					/* The stream is closed when the process is destroyed */
+				}
+			}, command.get(0) + " " + name);
+
+			t.setDaemon(true);
+			t.start();
+			drainers.add(t);
+		}
+
+		/**
+		 * Stop the process
+		 */
+		public void cancel() {
+			isCancelled = true;
+			destroy();
+		}
+
+		public boolean isAlive() {
+			return process.isAlive();
+		}
+
+		private void destroy() {
+
+			process.destroy();
+
+			try {
+				if(!process.waitFor(DESTROY_GRACE_MILLIS, TimeUnit.MILLISECONDS))
+					process.destroyForcibly();
+			} catch (InterruptedException e) {
+				process.destroyForcibly();
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		/**
+		 * Wait for the end of the process (or for its timeout)
+		 * @return The result of the execution
+		 * @throws InterruptedException If the current thread is interrupted (the process is then destroyed)
+		 */
+		public Result waitFor() throws InterruptedException {
+
+			boolean isTimedOut = false;
+
+			try {
+				if(timeoutMillis > 0) {
+					long remaining = timeoutMillis - (System.currentTimeMillis() - startTime);
+
+					if(!process.waitFor(Math.max(0, remaining), TimeUnit.MILLISECONDS)) {
+						isTimedOut = true;
+						destroy();
+					}
+				}
+
+				process.waitFor();
+
+				for(Thread t: drainers)
+					t.join();
+			}
+			catch(InterruptedException e) {
+				destroy();
+				throw e;
+			}
+
+			return new Result(process.exitValue(), isTimedOut, isCancelled, consumerError, output, error);
+		}
+	}
+
+	/**
+	 * Result of an execution
+	 */
+	public class Result {
+
+		int exitCode;
+		boolean isTimedOut;
+		boolean isCancelled;
+		RuntimeException consumerError;
+		OutputBuffer output;
+		OutputBuffer error;
+
+		Result(int exitCode, boolean isTimedOut, boolean isCancelled, RuntimeException consumerError, OutputBuffer output, OutputBuffer error) {
+			this.exitCode = exitCode;
+			this.isTimedOut = isTimedOut;
+			this.isCancelled = isCancelled;
+			this.consumerError = consumerError;
+			this.output = output;
+			this.error = error;
+		}
+
+		public int getExitCode() {
+			return exitCode;
+		}
+
+		/**
+		 * @return True if the process was destroyed because it reached its timeout
+		 */
+		public boolean isTimedOut() {
+			return isTimedOut;
+		}
+
+		public boolean isCancelled() {
+			return isCancelled;
+		}
+
+		/**
+		 * @return The exception thrown by the output line consumer (the next lines were then not given to it); null if it never failed
+		 */
+		public RuntimeException getConsumerError() {
+			return consumerError;
+		}
+
+		/**
+		 * @return True if the process ended normally with exit code 0
+		 */
+		public boolean isSuccess() {
+			return !isTimedOut && !isCancelled && exitCode == 0;
+		}
+
+		/**
+		 * @return The end of the standard output kept in memory (empty if it was redirected to a file)
+		 */
+		public String getOutput() {
+			return output.toString();
+		}
+
+		/**
+		 * @return The end of the standard error kept in memory (empty if it was redirected to a file)
+		 */
+		public String getError() {
+			return error.toString();
+		}
+
+		/**
+		 * @return True if the beginning of the standard output or of the standard error was dropped from memory
+		 */
+		public boolean isTruncated() {
+			return output.isTruncated() || error.isTruncated();
+		}
+
+		/**
+		 * @return The lines of the standard output (read lazily from its file if it was redirected, the lines kept in memory otherwise)
+		 * @throws IOException
+		 */
+		public Stream<String> getOutputLines() throws IOException {
+
+			if(outputFile != null)
+				return Files.lines(outputFile.toPath());
+
+			return output.lines();
+		}
+	}
+
+	/**
+	 * Buffer of lines which only keeps its last lines within a number of characters
+	 */
+	static class OutputBuffer {
+
+		int capacity;
+		ArrayDeque<String> lines = new ArrayDeque<>();
+
+		/** Number of characters of the lines kept (a line break is counted for each line) */
+		long length = 0;
+
+		boolean isTruncated = false;
+
+		OutputBuffer(int capacity) {
+			this.capacity = capacity;
+		}
+
+		synchronized void append(String line) {
+
+			lines.addLast(line);
+			length += line.length() + 1;
+
+			while(length > capacity && !lines.isEmpty()) {
+				length -= lines.removeFirst().length() + 1;
+				isTruncated = true;
+			}
+		}
+
+		synchronized boolean isTruncated() {
+			return isTruncated;
+		}
+
+		/**
+		 * @return The lines kept (a copy of the list of the lines, the text of the lines is not copied)
+		 */
+		synchronized Stream<String> lines() {
+			return new ArrayList<>(lines).stream();
+		}
+
+		@Override
+		public synchronized String toString() {
+
+			StringBuilder sb = new StringBuilder((int) length);
+
+			for(String line: lines)
+				sb.append(line).append('\n');
+
+			return sb.toString();
+		}
+	}
+}
@@ -0,0 +1,188 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Completion markers of the stages of a computation (e.g., vint, traf, conversion), so that a computation stopped during a stage can be resumed at this stage.
+ *
+ * When a stage is completed, a marker is written in a folder of the workspace with the parameters of the stage and the SHA-256 checksum of its input and output files.
+ * A stage is considered completed during a later run iff its marker exists, the parameters and the files are the same and their checksums did not change
+ * (i.e., its outputs are neither missing nor stale). Otherwise, it must be run again.
+ *
+ * Example:
+ * StageCheckpoints checkpoints = new StageCheckpoints(new File("workspace/stages"));
+ * if(!checkpoints.isComplete("traf", "", inputs, outputs)) {
+ *     ... run traf ...
+ *     checkpoints.complete("traf", "", inputs, outputs);
+ * }
+ */
+public class StageCheckpoints {
+
+	/** Suffix of the name of the markers */
+	static final String MARKER_SUFFIX = ".done";
+
+	/** Folder of the markers */
+	File folder;
+
+	/**
+	 * @param folder Folder of the markers (created if necessary)
+	 */
+	public StageCheckpoints(File folder) {
+		this.folder = folder;
+		folder.mkdirs();
+	}
+
+	/**
+	 * Test if a stage has been completed with the same parameters and inputs and if its outputs are unchanged
+	 * @param stage Name of the stage
+	 * @param parameters What the result of the stage depends on besides its input files (e.g., the class of the polytope)
+	 * @param inputs Files read by the stage
+	 * @param outputs Files written by the stage
+	 * @return True if the stage does not need to be run again
+	 */
+	public boolean isComplete(String stage, String parameters, List<File> inputs, List<File> outputs) {
+
+		File marker = marker(stage);
+
+		if(!marker.exists())
+			return false;
+
+		try {
+			return Files.readAllLines(marker.toPath(), StandardCharsets.UTF_8).equals(describe(parameters, inputs, outputs));
+		} catch (IOException e) {
+
+			/* A missing or unreadable file */
+			return false;
+		}
+	}
+
+	/**
+	 * Record that a stage has been completed (nothing is recorded if one of its files is missing)
+	 * @param stage Name of the stage
+	 * @param parameters What the result of the stage depends on besides its input files
+	 * @param inputs Files read by the stage
+	 * @param outputs Files written by the stage
+	 */
+	public void complete(String stage, String parameters, List<File> inputs, List<File> outputs) {
+
+		/* The stage failed */
+		for(File file: outputs)
+			if(!file.exists())
+				return;
+
+		for(File file: inputs)
+			if(!file.exists())
+				return;
+
+		Path tmp = null;
+
+		try {
+			/* The marker is written under a temporary name then renamed, so that an incomplete marker is never read */
+			tmp = Files.createTempFile(folder.toPath(), stage, ".tmp");
+			Files.write(tmp, describe(parameters, inputs, outputs), StandardCharsets.UTF_8);
+
+			try {
+				Files.move(tmp, marker(stage).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp, marker(stage).toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+
+			/* The stage will be run again next time */
+			e.printStackTrace();
+		}
+		finally {
+			if(tmp != null)
+				tmp.toFile().delete();
+		}
+	}
+
+	/**
+	 * Remove the marker of a stage (it will be run again)
+	 * @param stage Name of the stage
+	 */
+	public void invalidate(String stage) {
+		marker(stage).delete();
+	}
+
+	/**
+	 * Remove all the markers
+	 */
+	public void clear() {
+
+		File[] markers = folder.listFiles((dir, name) -> name.endsWith(MARKER_SUFFIX));
+
+		if(markers != null)
+			for(File marker: markers)
+				marker.delete();
+	}
+
+	private File marker(String stage) {
+		return new File(folder, stage + MARKER_SUFFIX);
+	}
+
+	/**
+	 * @return The content of the marker of a stage
+	 * @throws IOException If a file cannot be read
+	 */
+	private static List<String> describe(String parameters, List<File> inputs, List<File> outputs) throws IOException {
+
+		List<String> lines = new ArrayList<>();
+		lines.add("parameters " + parameters.replace('\n', ' '));
+
+		for(File input: inputs)
+			lines.add("input " + checksum(input) + " " + input.getPath());
+
+		for(File output: outputs)
+			lines.add("output " + checksum(output) + " " + output.getPath());
+
+		return lines;
+	}
+
+	/**
+	 * @return The SHA-256 digest (hexadecimal) of a text (e.g., the description of an instance to include in the parameters of a stage)
+	 */
+	public static String digest(String text) {
+
+		try {
+			return PortaCache.toHex(MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @return The SHA-256 checksum (hexadecimal) of the content of a file
+	 * @throws IOException
+	 */
+	public static String checksum(File file) throws IOException {
+
+		MessageDigest digest;
+
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+
+		byte[] buffer = new byte[1 << 16];
+
+		try(InputStream is = new DigestInputStream(Files.newInputStream(file.toPath()), digest)){
+			while(is.read(buffer) != -1);
+		}
+
+		return PortaCache.toHex(digest.digest());
+	}
+}